@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -12,15 +13,19 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -60,19 +65,27 @@ import org.bukkit.potion.PotionType;
 import org.bukkit.scoreboard.Objective;
 import org.bukkit.scoreboard.Score;
 import org.mineacademy.remain.internal.ChatInternals;
+import org.mineacademy.remain.internal.FakeBlockInternals;
 import org.mineacademy.remain.internal.NBTInternals;
 import org.mineacademy.remain.internal.bossbar.BossBarInternals;
 import org.mineacademy.remain.model.CompBarColor;
 import org.mineacademy.remain.model.CompBarStyle;
 import org.mineacademy.remain.model.CompMaterial;
+import org.mineacademy.remain.util.BlockBatch;
+import org.mineacademy.remain.util.BlockWriter;
+import org.mineacademy.remain.util.EntityIndex;
+import org.mineacademy.remain.util.EntityQuery;
+import org.mineacademy.remain.util.JsonUtil;
+import org.mineacademy.remain.util.LRUCache;
 import org.mineacademy.remain.util.MinecraftVersion;
 import org.mineacademy.remain.util.MinecraftVersion.V;
-import org.mineacademy.remain.util.NameFetcher;
+import org.mineacademy.remain.util.NameResolver;
 import org.mineacademy.remain.util.ReflectionUtil;
 import org.mineacademy.remain.util.RemainUtils;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import lombok.Getter;
 import lombok.NonNull;
@@ -182,6 +195,11 @@ public class Remain {
 	 */
 	private static boolean protocolLibLoaded = true;
 
+	/**
+	 * Recently converted messages by {@link #toJson(String)}
+	 */
+	private static final LRUCache<String, String> jsonCache = new LRUCache<>(512);
+
 	// Singleton
 	private Remain() {
 	}
@@ -437,14 +455,7 @@ public class Remain {
 	 * @param data
 	 */
 	public static void setData(Block block, int data) {
-		try {
-			Block.class.getMethod("setData", byte.class).invoke(block, (byte) data);
-		} catch (final NoSuchMethodException ex) {
-			block.setBlockData(Bukkit.getUnsafe().fromLegacy(block.getType(), (byte) data), true);
-
-		} catch (final ReflectiveOperationException ex) {
-			ex.printStackTrace();
-		}
+		BlockWriter.writeData(block, (byte) data, true);
 	}
 
 	/**
@@ -472,51 +483,30 @@ public class Remain {
 	/**
 	 * Sets a block type and its data.
 	 *
+	 * To change many blocks at once use {@link BlockBatch}.
+	 *
 	 * @param block
 	 * @param material
 	 * @param data
 	 */
 	public static void setTypeAndData(Block block, Material material, byte data, boolean physics) {
-		if (MinecraftVersion.atLeast(V.v1_13)) {
-			block.setType(material);
-			block.setBlockData(Bukkit.getUnsafe().fromLegacy(material, data), physics);
-
-		} else {
-			try {
-				block.getClass().getMethod("setTypeIdAndData", int.class, byte.class, boolean.class).invoke(block, material.getId(), data, physics);
-			} catch (final ReflectiveOperationException ex) {
-				ex.printStackTrace();
-			}
-		}
+		BlockWriter.write(block, material, data, physics);
 	}
 
 	/**
 	 * Sends a fake block update to a certain location, and than reverts it back to
 	 * the real block after a while.
 	 *
+	 * All fake blocks are handled by one task and changes in the same chunk are
+	 * sent together, so this is cheap to call for many blocks at once.
+	 *
 	 * @param delayTicks the pause between reverting back
 	 * @param player     the player
 	 * @param loc        the location
 	 * @param material   the material
 	 */
 	public static void animateBlockChange(final int delayTicks, final Player player, final Location loc, final CompMaterial material) {
-		// Force to run sync
-		RemainUtils.runDelayed(() -> {
-			try {
-				player.sendBlockChange(loc, material.getMaterial().createBlockData());
-			} catch (NoSuchMethodError ex) {
-				player.sendBlockChange(loc, material.getMaterial(), (byte) material.getData());
-			}
-		});
-
-		// Rest
-		RemainUtils.runDelayed(delayTicks, () -> {
-			try {
-				player.sendBlockChange(loc, loc.getBlock().getBlockData());
-			} catch (NoSuchMethodError ex) {
-				player.sendBlockChange(loc, material.getMaterial(), (byte) material.getData());
-			}
-		});
+		FakeBlockInternals.show(player, loc, material, delayTicks);
 	}
 
 	/**
@@ -545,20 +535,33 @@ public class Remain {
 	 */
 	public static String toLegacyText(String json, boolean denyEvents) throws InteractiveTextFoundException {
 		Validate.isTrue(bungeeApiPresent, "(Un)packing chat requires Spigot 1.7.10 or newer");
-		String text = "";
 
 		try {
+			final String legacy = LegacyTextWalker.toLegacyText(json, denyEvents);
+
+			if (legacy != null)
+				return legacy;
+
+			// The message uses components we cannot render ourselves, such as translations
+			final StringBuilder text = new StringBuilder(json.length());
+
 			for (final BaseComponent comp : ComponentSerializer.parse(json)) {
 				if ((comp.getHoverEvent() != null || comp.getClickEvent() != null) && denyEvents)
 					throw new InteractiveTextFoundException();
 
-				text += comp.toLegacyText();
+				text.append(comp.toLegacyText());
 			}
+
+			return text.toString();
+
+		} catch (final InteractiveTextFoundException ex) {
+			throw ex;
+
 		} catch (final Throwable t) {
-			RemainUtils.debug("Unable to parse JSON message. Got " + t.getMessage());
+			RemainUtils.debug("Unable to parse JSON message: " + json, t);
 		}
 
-		return text;
+		return "";
 	}
 
 	/**
@@ -568,7 +571,24 @@ public class Remain {
 	public static String toJson(String message) {
 		Validate.isTrue(bungeeApiPresent, "(Un)packing chat requires Spigot 1.7.10 or newer");
 
-		return toJson(TextComponent.fromLegacyText(message));
+		String json = jsonCache.get(message);
+
+		if (json == null) {
+			json = toJson(TextComponent.fromLegacyText(message));
+
+			jsonCache.put(message, json);
+		}
+
+		return json;
+	}
+
+	/**
+	 * Get the cache of messages converted by {@link #toJson(String)}
+	 *
+	 * @return
+	 */
+	public static LRUCache<String, String> getJsonCache() {
+		return jsonCache;
 	}
 
 	/**
@@ -586,7 +606,7 @@ public class Remain {
 			json = ComponentSerializer.toString(comps);
 
 		} catch (final Throwable t) {
-			json = new Gson().toJson(new TextComponent(comps).toLegacyText());
+			json = JsonUtil.quote(new TextComponent(comps).toLegacyText());
 		}
 
 		return json;
@@ -698,6 +718,60 @@ public class Remain {
 		}
 	}
 
+	/**
+	 * Sends the same title to all players, serializing the texts and creating the
+	 * packets only once (1.8+). Texts will be colorized.
+	 *
+	 * @param players  the players
+	 * @param fadeIn   the fade in time in ticks
+	 * @param stay     the stay time in ticks
+	 * @param fadeOut  the fade out time in ticks
+	 * @param title    the title, will be colorized
+	 * @param subtitle the subtitle, will be colorized
+	 */
+	public static void broadcastTitle(Collection<? extends Player> players, int fadeIn, int stay, int fadeOut, String title, String subtitle) {
+		if (MinecraftVersion.newerThan(V.v1_7))
+			ChatInternals.sendTitle(players, fadeIn, stay, fadeOut, title, subtitle);
+
+		else
+			for (final Player player : players) {
+				RemainUtils.tell(player, title);
+				RemainUtils.tell(player, subtitle);
+			}
+	}
+
+	/**
+	 * Sets the same tab-list header and/or footer for all players, creating the
+	 * packet only once. Header or footer can be null. (1.8+) Texts will be colorized.
+	 *
+	 * @param players the players
+	 * @param header  the header
+	 * @param footer  the footer
+	 */
+	public static void broadcastTablist(Collection<? extends Player> players, String header, String footer) {
+		Validate.isTrue(MinecraftVersion.newerThan(V.v1_7), "Sending tab list requires Minecraft 1.8x or newer!");
+
+		ChatInternals.sendTablist(players, header, footer);
+	}
+
+	/**
+	 * Displays the same message above the health and hunger bar of all players,
+	 * creating the packet only once. (1.8+) Text will be colorized.
+	 *
+	 * @param players the players
+	 * @param text    the text
+	 */
+	public static void broadcastActionBar(Collection<? extends Player> players, String text) {
+		if (!MinecraftVersion.newerThan(V.v1_7)) {
+			for (final Player player : players)
+				RemainUtils.tell(player, text);
+
+			return;
+		}
+
+		ChatInternals.sendActionBar(players, text);
+	}
+
 	/**
 	 * Send boss bar as percent
 	 *
@@ -746,6 +820,63 @@ public class Remain {
 		BossBarInternals.setMessage(player, message, seconds, color, style);
 	}
 
+	/**
+	 * Create or update a boss bar shown to many players at once, add players with
+	 * {@link #addSharedBossbarViewer(String, Player)}. On Minecraft 1.9 and newer all
+	 * viewers share one bar, so updates are sent once for all of them.
+	 *
+	 * On Minecraft 1.8 and older a player can only see one bar, the personal or shared
+	 * bar set last replaces the others.
+	 *
+	 * @param id the unique id of the bar, such as the arena name
+	 * @param message
+	 * @param percent
+	 * @param color the color, or null to keep the current one
+	 * @param style the style, or null to keep the current one
+	 */
+	public static void updateSharedBossbar(String id, String message, float percent, CompBarColor color, CompBarStyle style) {
+		BossBarInternals.setSharedMessage(id, message, percent, color, style);
+	}
+
+	/**
+	 * Show the shared boss bar to the player, see {@link #updateSharedBossbar(String, String, float, CompBarColor, CompBarStyle)}
+	 *
+	 * @param id
+	 * @param player
+	 */
+	public static void addSharedBossbarViewer(String id, Player player) {
+		BossBarInternals.addSharedViewer(id, player);
+	}
+
+	/**
+	 * Hide the shared boss bar from the player
+	 *
+	 * @param id
+	 * @param player
+	 */
+	public static void removeSharedBossbarViewer(String id, Player player) {
+		BossBarInternals.removeSharedViewer(id, player);
+	}
+
+	/**
+	 * Get the players seeing the shared boss bar
+	 *
+	 * @param id
+	 * @return
+	 */
+	public static Collection<Player> getSharedBossbarViewers(String id) {
+		return BossBarInternals.getSharedViewers(id);
+	}
+
+	/**
+	 * Hide the shared boss bar from all its viewers and remove it
+	 *
+	 * @param id
+	 */
+	public static void removeSharedBossbar(String id) {
+		BossBarInternals.removeShared(id);
+	}
+
 	/**
 	 * Creates new plugin command from given label
 	 *
@@ -940,6 +1071,10 @@ public class Remain {
 	/**
 	 * Tries to find offline player by uuid
 	 *
+	 * On old servers the name is resolved through {@link NameResolver}. On the main
+	 * thread this never waits, if the name is not cached yet we return null and
+	 * resolve it in the background.
+	 *
 	 * @param id
 	 * @return
 	 */
@@ -948,18 +1083,47 @@ public class Remain {
 			return Bukkit.getOfflinePlayer(id);
 
 		} catch (final NoSuchMethodError err) {
-			final NameFetcher f = new NameFetcher(id);
 
-			try {
-				final String name = f.call();
+			// Never wait for the name on the main thread, we return null and resolve it for the next call
+			if (Bukkit.isPrimaryThread()) {
+				final String name = NameResolver.getCachedName(id);
+
+				if (name == null) {
+					NameResolver.resolve(id);
+
+					return null;
+				}
 
 				return Bukkit.getOfflinePlayer(name);
+			}
+
+			try {
+				final String name = NameResolver.resolve(id).join();
+
+				return name != null ? Bukkit.getOfflinePlayer(name) : null;
+
 			} catch (final Throwable t) {
 				return null;
 			}
 		}
 	}
 
+	/**
+	 * Tries to find offline player by uuid without blocking, on old servers
+	 * the name is resolved in the background, see {@link NameResolver}
+	 *
+	 * @param id
+	 * @return a future completed with the player, or null if not found
+	 */
+	public static final CompletableFuture<OfflinePlayer> getOfflinePlayerByUUIDAsync(UUID id) {
+		try {
+			return CompletableFuture.completedFuture(Bukkit.getOfflinePlayer(id));
+
+		} catch (final NoSuchMethodError err) {
+			return NameResolver.resolve(id).handle((name, error) -> name != null ? Bukkit.getOfflinePlayer(name) : null);
+		}
+	}
+
 	/**
 	 * Tries to find online player by uuid
 	 *
@@ -1099,7 +1263,7 @@ public class Remain {
 	}
 
 	/**
-	 * Finds an entity by its uuid
+	 * Finds an entity by its uuid, see {@link EntityIndex} for lookup metrics
 	 *
 	 * @param id
 	 * @return the entity, or null
@@ -1107,16 +1271,12 @@ public class Remain {
 	public static final Entity getEntity(UUID id) {
 		catchAsync("iterating through entities [CMN]");
 
-		for (final World w : Bukkit.getWorlds())
-			for (final Entity e : w.getEntities())
-				if (e.getUniqueId().equals(id))
-					return e;
-
-		return null;
+		return EntityIndex.getEntity(id);
 	}
 
 	/**
-	 * Return nearby entities in a location
+	 * Return nearby entities in a location, see {@link EntityQuery} for spheres,
+	 * boxes and cylinders filtered by type
 	 *
 	 * @param loc
 	 * @param radius
@@ -1127,13 +1287,7 @@ public class Remain {
 			return loc.getWorld().getNearbyEntities(loc, radius, radius, radius);
 
 		} catch (final Throwable t) {
-			final List<Entity> found = new ArrayList<>();
-
-			for (final Entity e : loc.getWorld().getEntities())
-				if (e.getLocation().distance(loc) <= radius)
-					found.add(e);
-
-			return found;
+			return EntityQuery.getInSphere(loc, radius, Entity.class);
 		}
 	}
 
@@ -1400,7 +1554,7 @@ public class Remain {
 	public static class InteractiveTextFoundException extends RuntimeException {
 		private static final long serialVersionUID = 1L;
 
-		private InteractiveTextFoundException() {
+		InteractiveTextFoundException() {
 		}
 	}
 }
@@ -1434,10 +1588,12 @@ class BungeeChatProvider {
 	}
 
 	private static void sendComponent0(CommandSender sender, BaseComponent... comps) {
-		String plainMessage = "";
+		final StringBuilder legacy = new StringBuilder();
 
 		for (final BaseComponent comp : comps)
-			plainMessage += comp.toLegacyText();
+			legacy.append(comp.toLegacyText());
+
+		final String plainMessage = legacy.toString();
 
 		if (!(sender instanceof Player)) {
 			tell0(sender, plainMessage);
@@ -1477,6 +1633,260 @@ class BungeeChatProvider {
 	}
 }
 
+/**
+ * Converts chat JSON to legacy text in one pass over the string, without creating
+ * components. Only plain text components are supported, for anything else such as
+ * translations or hex colors we return null and let the component library do the job.
+ */
+class LegacyTextWalker {
+
+	/**
+	 * Legacy color codes by their JSON name
+	 */
+	private static final Map<String, Character> colors = new HashMap<>();
+
+	/**
+	 * Format codes in the order BungeeCord appends them, matching {@link #formatNames}
+	 */
+	private static final char[] formatCodes = { 'l', 'o', 'n', 'm', 'k' };
+
+	/**
+	 * The JSON keys of formats, the index is the bit in {@link Node#formats}
+	 */
+	private static final String[] formatNames = { "bold", "italic", "underlined", "strikethrough", "obfuscated" };
+
+	static {
+		final String[] names = { "black", "dark_blue", "dark_green", "dark_aqua", "dark_red", "dark_purple", "gold", "gray", "dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow", "white" };
+
+		for (int i = 0; i < names.length; i++)
+			colors.put(names[i], Character.forDigit(i, 16));
+
+		colors.put("reset", 'r');
+	}
+
+	private final JsonReader reader;
+	private final boolean denyEvents;
+
+	/**
+	 * Set to false once we find something only the component library can render
+	 */
+	private boolean supported = true;
+
+	private LegacyTextWalker(String json, boolean denyEvents) {
+		this.reader = new JsonReader(new StringReader(json));
+		this.denyEvents = denyEvents;
+
+		reader.setLenient(true);
+	}
+
+	/**
+	 * Convert the JSON into legacy text the same way {@link BaseComponent#toLegacyText()} does
+	 *
+	 * @param json
+	 * @param denyEvents throw {@link InteractiveTextFoundException} as soon as a hover or click event is read
+	 * @return the legacy text, or null if the message must be converted through components
+	 * @throws IOException if the JSON is malformed
+	 */
+	static String toLegacyText(String json, boolean denyEvents) throws IOException {
+		final LegacyTextWalker walker = new LegacyTextWalker(json, denyEvents);
+		final List<Node> nodes;
+
+		// Same as ComponentSerializer#parse, only messages starting with a bracket are arrays
+		if (json.startsWith("["))
+			nodes = walker.readArray();
+
+		else {
+			nodes = new ArrayList<>(1);
+			nodes.add(walker.readComponent());
+		}
+
+		if (!walker.supported)
+			return null;
+
+		final StringBuilder builder = new StringBuilder(json.length());
+
+		for (final Node node : nodes)
+			node.appendLegacy(builder, 'f', 0);
+
+		return builder.toString();
+	}
+
+	// Reads an array of components
+	private List<Node> readArray() throws IOException {
+		final List<Node> nodes = new ArrayList<>();
+
+		reader.beginArray();
+
+		while (reader.hasNext())
+			nodes.add(readComponent());
+
+		reader.endArray();
+
+		return nodes;
+	}
+
+	// Reads a component that is either plain text or an object
+	private Node readComponent() throws IOException {
+		final JsonToken token = reader.peek();
+
+		if (token == JsonToken.BEGIN_OBJECT)
+			return readObject();
+
+		final Node node = new Node();
+		node.text = readText();
+
+		return node;
+	}
+
+	// Reads a string or number as text
+	private String readText() throws IOException {
+		final JsonToken token = reader.peek();
+
+		if (token == JsonToken.STRING || token == JsonToken.NUMBER)
+			return reader.nextString();
+
+		supported = false;
+		reader.skipValue();
+
+		return "";
+	}
+
+	// Reads a component object, keys may come in any order so children are rendered later
+	private Node readObject() throws IOException {
+		final Node node = new Node();
+		boolean hasText = false;
+
+		reader.beginObject();
+
+		while (reader.hasNext()) {
+			final String key = reader.nextName();
+
+			switch (key) {
+				case "text":
+					node.text = readText();
+					hasText = true;
+					break;
+
+				case "color":
+					readColor(node);
+					break;
+
+				case "extra":
+					node.extra = readArray();
+					break;
+
+				case "clickEvent":
+				case "hoverEvent":
+					if (denyEvents)
+						throw new InteractiveTextFoundException();
+
+					reader.skipValue();
+					break;
+
+				default:
+					final int format = Arrays.asList(formatNames).indexOf(key);
+
+					if (format != -1)
+						readFormat(node, 1 << format);
+					else
+						reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+
+		// Translations, keybinds, scores and selectors have no text
+		if (!hasText)
+			supported = false;
+
+		return node;
+	}
+
+	// Reads a named color, hex colors are left to the component library
+	private void readColor(Node node) throws IOException {
+		if (reader.peek() != JsonToken.STRING) {
+			supported = false;
+
+			reader.skipValue();
+			return;
+		}
+
+		final Character code = colors.get(reader.nextString().toLowerCase(Locale.ROOT));
+
+		if (code != null)
+			node.color = code;
+		else
+			supported = false;
+	}
+
+	// Reads a format flag given as a boolean or a string
+	private void readFormat(Node node, int bit) throws IOException {
+		final JsonToken token = reader.peek();
+		final boolean value;
+
+		if (token == JsonToken.BOOLEAN)
+			value = reader.nextBoolean();
+
+		else if (token == JsonToken.STRING)
+			value = Boolean.parseBoolean(reader.nextString());
+
+		else {
+			supported = false;
+
+			reader.skipValue();
+			return;
+		}
+
+		node.formatsSet |= bit;
+
+		if (value)
+			node.formats |= bit;
+	}
+
+	/**
+	 * A read text component, inheriting color and formats from its parent
+	 */
+	private static final class Node {
+
+		private String text = "";
+
+		/**
+		 * The legacy color code, or 0 to inherit it
+		 */
+		private char color;
+
+		/**
+		 * The enabled format bits, only those in {@link #formatsSet} are used
+		 */
+		private int formats;
+
+		/**
+		 * The format bits given explicitly, the rest are inherited
+		 */
+		private int formatsSet;
+
+		private List<Node> extra;
+
+		// Appends this component and its children with their resolved color and formats
+		private void appendLegacy(StringBuilder builder, char parentColor, int parentFormats) {
+			final char color = this.color != 0 ? this.color : parentColor;
+			final int formats = parentFormats & ~formatsSet | this.formats;
+
+			builder.append(ChatColor.COLOR_CHAR).append(color);
+
+			for (int i = 0; i < formatCodes.length; i++)
+				if ((formats & 1 << i) != 0)
+					builder.append(ChatColor.COLOR_CHAR).append(formatCodes[i]);
+
+			builder.append(text);
+
+			if (extra != null)
+				for (final Node child : extra)
+					child.appendLegacy(builder, color, formats);
+		}
+	}
+}
+
 /**
  * A wrapper for advancements
  */
@@ -1560,6 +1970,6 @@ class AdvancementAccessor {
 		json.add("criteria", criteria);
 		json.add("display", display);
 
-		return new Gson().toJson(json);
+		return JsonUtil.toJson(json);
 	}
 }
@@ -3,12 +3,18 @@ package org.mineacademy.remain.internal;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.regex.Matcher;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.mineacademy.remain.Remain;
+import org.mineacademy.remain.util.LRUCache;
 import org.mineacademy.remain.util.RemainUtils;
 import org.mineacademy.remain.util.MinecraftVersion;
 import org.mineacademy.remain.util.ReflectionUtil;
@@ -38,6 +44,21 @@ public class ChatInternals {
 	private static final Method componentSerializer;
 	private static final Constructor<?> chatMessageConstructor;
 
+	/**
+	 * The ChatMessageType constants by their id on Minecraft 1.12 and newer, null on older versions
+	 */
+	private static Object[] chatMessageTypes;
+
+	/**
+	 * The sender id for system messages on Minecraft 1.16 and newer
+	 */
+	private static final UUID systemSender = new UUID(0, 0);
+
+	/**
+	 * Serialized chat components by their raw text, packets only read them so they are shared
+	 */
+	private static final LRUCache<String, Object> componentCache = new LRUCache<>(512);
+
 	// Prevent new instance, always call static methods
 	public ChatInternals() {
 	}
@@ -55,7 +76,15 @@ public class ChatInternals {
 			componentSerializer = serializer.getMethod("a", String.class);
 
 			final Class<?> chatPacket = ReflectionUtil.getNMSClass("PacketPlayOutChat");
-			chatMessageConstructor = MinecraftVersion.newerThan(V.v1_7) ? chatPacket.getConstructor(chatBaseComponent, byte.class) : chatPacket.getConstructor(chatBaseComponent);
+
+			if (MinecraftVersion.atLeast(V.v1_12)) {
+				final Class<?> chatMessageType = ReflectionUtil.getNMSClass("ChatMessageType");
+
+				chatMessageTypes = chatMessageType.getEnumConstants();
+				chatMessageConstructor = MinecraftVersion.atLeast(V.v1_16) ? chatPacket.getConstructor(chatBaseComponent, chatMessageType, UUID.class) : chatPacket.getConstructor(chatBaseComponent, chatMessageType);
+
+			} else
+				chatMessageConstructor = MinecraftVersion.newerThan(V.v1_7) ? chatPacket.getConstructor(chatBaseComponent, byte.class) : chatPacket.getConstructor(chatBaseComponent);
 
 			if (MinecraftVersion.newerThan(V.v1_7)) {
 				final Class<?> titlePacket = ReflectionUtil.getNMSClass("PacketPlayOutTitle");
@@ -91,34 +120,46 @@ public class ChatInternals {
 	 * @param subtitle
 	 */
 	public static void sendTitle(Player player, int fadeIn, int stay, int fadeOut, String title, String subtitle) {
-		try {
-			if (titleConstructor == null)
-				return;
+		sendTitle(Collections.singletonList(player), fadeIn, stay, fadeOut, title, subtitle);
+	}
 
-			resetTitle(player);
+	/**
+	 * Send a title to all players, creating the packets only once
+	 *
+	 * @param players
+	 * @param fadeIn
+	 * @param stay
+	 * @param fadeOut
+	 * @param title
+	 * @param subtitle
+	 */
+	public static void sendTitle(Collection<? extends Player> players, int fadeIn, int stay, int fadeOut, String title, String subtitle) {
+		if (titleConstructor == null || players.isEmpty())
+			return;
 
-			if (titleTimesConstructor != null) {
-				final Object packet = titleTimesConstructor.newInstance(fadeIn, stay, fadeOut);
+		final List<Object> packets = new ArrayList<>(4);
 
-				ReflectionUtil.sendPacket(player, packet);
-			}
+		try {
+			if (resetTitleConstructor != null)
+				packets.add(resetTitleConstructor.newInstance(enumReset, null));
 
-			if (title != null) {
-				final Object chatTitle = serializeText(title);
-				final Object packet = titleConstructor.newInstance(enumTitle, chatTitle);
+			if (titleTimesConstructor != null)
+				packets.add(titleTimesConstructor.newInstance(fadeIn, stay, fadeOut));
 
-				ReflectionUtil.sendPacket(player, packet);
-			}
+			if (title != null)
+				packets.add(titleConstructor.newInstance(enumTitle, serializeText(title)));
 
-			if (subtitle != null) {
-				final Object chatSubtitle = serializeText(subtitle);
-				final Object packet = subtitleConstructor.newInstance(enumSubtitle, chatSubtitle);
+			if (subtitle != null)
+				packets.add(subtitleConstructor.newInstance(enumSubtitle, serializeText(subtitle)));
 
-				ReflectionUtil.sendPacket(player, packet);
-			}
 		} catch (final ReflectiveOperationException ex) {
-			throw new ReflectionException("Error sending title to: " + player.getName(), ex);
+			throw new ReflectionException("Error sending title to: " + getNames(players), ex);
 		}
+
+		final Object[] packetArray = packets.toArray();
+
+		for (final Player player : players)
+			ReflectionUtil.sendCosmeticPackets(player, packetArray);
 	}
 
 	/**
@@ -133,7 +174,7 @@ public class ChatInternals {
 
 			final Object packet = resetTitleConstructor.newInstance(enumReset, null);
 
-			ReflectionUtil.sendPacket(player, packet);
+			ReflectionUtil.sendCosmeticPackets(player, packet);
 		} catch (final ReflectiveOperationException ex) {
 			throw new ReflectionException("Error resetting title to: " + player.getName());
 		}
@@ -147,12 +188,25 @@ public class ChatInternals {
 	 * @param footerRaw
 	 */
 	public static void sendTablist(Player player, String headerRaw, String footerRaw) {
-		try {
-			if (tabConstructor == null)
-				return;
+		sendTablist(Collections.singletonList(player), headerRaw, footerRaw);
+	}
 
+	/**
+	 * Send tablist to all players, creating the packet only once
+	 *
+	 * @param players
+	 * @param headerRaw
+	 * @param footerRaw
+	 */
+	public static void sendTablist(Collection<? extends Player> players, String headerRaw, String footerRaw) {
+		if (tabConstructor == null || players.isEmpty())
+			return;
+
+		final Object packet;
+
+		try {
 			final Object header = serializeText(headerRaw);
-			final Object packet = tabConstructor.newInstance(header);
+			packet = tabConstructor.newInstance(header);
 
 			if (footerRaw != null) {
 				final Object footer = serializeText(footerRaw);
@@ -162,11 +216,14 @@ public class ChatInternals {
 				f.set(packet, footer);
 			}
 
-			ReflectionUtil.sendPacket(player, packet);
-
 		} catch (final ReflectiveOperationException ex) {
-			RemainUtils.error("Failed to send tablist to " + player.getName() + ", title: " + headerRaw + " " + footerRaw, ex);
+			RemainUtils.error("Failed to send tablist to " + getNames(players) + ", title: " + headerRaw + " " + footerRaw, ex);
+
+			return;
 		}
+
+		for (final Player player : players)
+			ReflectionUtil.sendCosmeticPackets(player, packet);
 	}
 
 	/**
@@ -176,31 +233,90 @@ public class ChatInternals {
 	 * @param message
 	 */
 	public static void sendActionBar(Player player, String message) {
-		sendChat(player, message, (byte) 2);
+		sendChat(Collections.singletonList(player), message, (byte) 2);
 	}
 
-	private static void sendChat(Player pl, String text, byte type) {
+	/**
+	 * Send action bar to all players, creating the packet only once
+	 *
+	 * @param players
+	 * @param message
+	 */
+	public static void sendActionBar(Collection<? extends Player> players, String message) {
+		sendChat(players, message, (byte) 2);
+	}
+
+	private static void sendChat(Collection<? extends Player> players, String text, byte type) {
+		if (players.isEmpty())
+			return;
+
+		final Object packet;
+
 		try {
 			final Object message = serializeText(text);
 			Objects.requireNonNull(message, "Message cannot be null!");
 
-			final Object packet = chatMessageConstructor.newInstance(message, type); // http://wiki.vg/Protocol#Chat_Message
-			ReflectionUtil.sendPacket(pl, packet);
+			packet = makeChatPacket(message, type); // http://wiki.vg/Protocol#Chat_Message
 
 		} catch (final ReflectiveOperationException ex) {
-			RemainUtils.error("Failed to send chat packet type " + type + " to " + pl.getName() + ", message: " + text, ex);
+			RemainUtils.error("Failed to send chat packet type " + type + " to " + getNames(players) + ", message: " + text, ex);
+
+			return;
 		}
+
+		for (final Player player : players)
+			ReflectionUtil.sendCosmeticPackets(player, packet);
 	}
 
-	private static Object serializeText(String text) throws ReflectiveOperationException {
-		text = removeBracketsAndColorize(text);
+	// Creates the chat packet with the message type the server version expects
+	private static Object makeChatPacket(Object message, byte type) throws ReflectiveOperationException {
+		if (chatMessageTypes != null)
+			return MinecraftVersion.atLeast(V.v1_16) ? chatMessageConstructor.newInstance(message, chatMessageTypes[type], systemSender) : chatMessageConstructor.newInstance(message, chatMessageTypes[type]);
+
+		return MinecraftVersion.newerThan(V.v1_7) ? chatMessageConstructor.newInstance(message, type) : chatMessageConstructor.newInstance(message);
+	}
+
+	// Joins player names for error messages
+	private static String getNames(Collection<? extends Player> players) {
+		final StringBuilder names = new StringBuilder();
+
+		for (final Player player : players)
+			names.append(names.length() == 0 ? "" : ", ").append(player.getName());
+
+		return names.toString();
+	}
+
+	/**
+	 * Get the cache of serialized chat components by their raw text
+	 *
+	 * @return
+	 */
+	public static LRUCache<String, Object> getComponentCache() {
+		return componentCache;
+	}
+
+	// Returns the cached component for the raw text, serializing it on a miss
+	private static Object serializeText(String raw) throws ReflectiveOperationException {
+		final String key = raw == null ? "" : raw;
+		final Object cached = componentCache.get(key);
+
+		if (cached != null)
+			return cached;
+
+		final String text = removeBracketsAndColorize(raw);
+		final Object component;
 
 		try {
-			return componentSerializer.invoke(null, "{\"text\":\"" + Matcher.quoteReplacement(text) +  "\"}");
+			component = componentSerializer.invoke(null, "{\"text\":\"" + Matcher.quoteReplacement(text) +  "\"}");
 
 		} catch (final Throwable t) {
 			throw new RuntimeException("Failed to serialize text: " + text, t);
 		}
+
+		if (component != null)
+			componentCache.put(key, component);
+
+		return component;
 	}
 
 	private static String removeBracketsAndColorize(String text) {
@@ -0,0 +1,283 @@
+package org.mineacademy.remain.internal;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.mineacademy.remain.Remain;
+import org.mineacademy.remain.model.CompMaterial;
+import org.mineacademy.remain.util.MinecraftVersion;
+import org.mineacademy.remain.util.MinecraftVersion.V;
+import org.mineacademy.remain.util.RemainUtils;
+
+/**
+ * Shows fake blocks to players and reverts them after a while, see
+ * {@link Remain#animateBlockChange(int, Player, Location, CompMaterial)}
+ *
+ * Each player has a set of fake blocks with the tick they expire on. One task
+ * runs while any fake block is shown, sending new blocks and reverting expired
+ * ones. Changes in the same chunk are sent together as one multi block change
+ * packet where the server supports it.
+ *
+ * @deprecated internal use only, please use {@link Remain}
+ */
+@Deprecated
+public final class FakeBlockInternals implements Listener {
+
+	/**
+	 * Player#sendMultiBlockChange(Map, boolean) on Paper, or null if not available
+	 */
+	private static Method sendMultiBlockChange;
+
+	/**
+	 * The fake blocks of each player by their block location
+	 */
+	private static final Map<UUID, Map<Location, FakeBlock>> overrides = new HashMap<>();
+
+	/**
+	 * The fake blocks expiring on each tick
+	 */
+	private static final Map<Long, List<FakeBlock>> expiries = new HashMap<>();
+
+	/**
+	 * Block locations of each player changed since the last tick, sent on the next tick
+	 */
+	private static final Map<UUID, Set<Location>> pending = new HashMap<>();
+
+	/**
+	 * Ticks counted by the task
+	 */
+	private static long currentTick;
+
+	/**
+	 * The ticking task, or null while no fake block is shown
+	 */
+	private static BukkitTask task;
+
+	/**
+	 * The singleton instance
+	 */
+	private static FakeBlockInternals singleton = null;
+
+	// Singleton
+	private FakeBlockInternals() {
+	}
+
+	// Find the multi block change method and start listening to events
+	static {
+		if (MinecraftVersion.atLeast(V.v1_13))
+			try {
+				sendMultiBlockChange = Player.class.getMethod("sendMultiBlockChange", Map.class, boolean.class);
+
+			} catch (final NoSuchMethodException ex) {
+				sendMultiBlockChange = null;
+			}
+
+		if (singleton == null && Remain.getPlugin().isEnabled()) {
+			singleton = new FakeBlockInternals();
+
+			Bukkit.getPluginManager().registerEvents(singleton, Remain.getPlugin());
+		}
+	}
+
+	/**
+	 * Show a fake block to the player and revert it to the real block after the given ticks,
+	 * replacing the fake block already shown there. Safe to call from any thread.
+	 *
+	 * @param player
+	 * @param location
+	 * @param material
+	 * @param durationTicks
+	 */
+	public static void show(Player player, Location location, CompMaterial material, int durationTicks) {
+		if (!Bukkit.isPrimaryThread()) {
+			RemainUtils.runDelayed(0, () -> show(player, location, material, durationTicks));
+
+			return;
+		}
+
+		final Location blockLocation = new Location(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+		final FakeBlock block = new FakeBlock(player.getUniqueId(), blockLocation, material);
+
+		overrides.computeIfAbsent(block.playerId, key -> new HashMap<>()).put(blockLocation, block);
+
+		// The block is first sent on the next tick, so count the duration from there
+		expiries.computeIfAbsent(currentTick + 1 + Math.max(1, durationTicks), key -> new ArrayList<>()).add(block);
+
+		queue(block.playerId, blockLocation);
+
+		if (task == null)
+			task = RemainUtils.runTimer(1, FakeBlockInternals::tick);
+	}
+
+	/**
+	 * Revert all fake blocks shown to the player right away
+	 *
+	 * @param player
+	 */
+	public static void revertAll(Player player) {
+		final Map<Location, FakeBlock> blocks = overrides.remove(player.getUniqueId());
+
+		if (blocks != null) {
+			for (final Location location : blocks.keySet())
+				queue(player.getUniqueId(), location);
+
+			sendPending(player);
+		}
+	}
+
+	// Marks the block location to be sent to the player on the next tick
+	private static void queue(UUID playerId, Location location) {
+		pending.computeIfAbsent(playerId, key -> new LinkedHashSet<>()).add(location);
+	}
+
+	// Expires fake blocks and sends all changes queued since the last tick
+	private static void tick() {
+		final List<FakeBlock> expired = expiries.remove(++currentTick);
+
+		if (expired != null)
+			for (final FakeBlock block : expired) {
+				final Map<Location, FakeBlock> blocks = overrides.get(block.playerId);
+
+				// Skip blocks replaced by a newer fake block or already reverted
+				if (blocks != null && blocks.remove(block.location, block)) {
+					if (blocks.isEmpty())
+						overrides.remove(block.playerId);
+
+					queue(block.playerId, block.location);
+				}
+			}
+
+		for (final UUID playerId : new ArrayList<>(pending.keySet())) {
+			final Player player = Remain.getPlayerByUUID(playerId);
+
+			if (player != null)
+				sendPending(player);
+			else
+				pending.remove(playerId);
+		}
+
+		if (overrides.isEmpty() && expiries.isEmpty()) {
+			task.cancel();
+			task = null;
+		}
+	}
+
+	// Sends the fake or real block at each queued location grouped by chunk
+	private static void sendPending(Player player) {
+		final Set<Location> locations = pending.remove(player.getUniqueId());
+
+		if (locations == null)
+			return;
+
+		final Map<Location, FakeBlock> blocks = overrides.getOrDefault(player.getUniqueId(), new HashMap<>());
+		final World world = player.getWorld();
+		final Map<Long, List<Location>> chunks = new LinkedHashMap<>();
+
+		for (final Location location : locations) {
+			final int chunkX = location.getBlockX() >> 4, chunkZ = location.getBlockZ() >> 4;
+
+			// The client has no blocks of other worlds or unloaded chunks to change
+			if (location.getWorld().equals(world) && world.isChunkLoaded(chunkX, chunkZ))
+				chunks.computeIfAbsent((long) chunkX << 32 | chunkZ & 0xFFFFFFFFL, key -> new ArrayList<>()).add(location);
+		}
+
+		for (final List<Location> chunk : chunks.values())
+			if (sendMultiBlockChange != null && chunk.size() > 1)
+				sendMultiBlockChange(player, chunk, blocks);
+
+			else
+				for (final Location location : chunk)
+					sendBlockChange(player, location, blocks.get(location));
+	}
+
+	private static void sendMultiBlockChange(Player player, List<Location> chunk, Map<Location, FakeBlock> blocks) {
+		final Map<Location, BlockData> changes = new HashMap<>();
+
+		for (final Location location : chunk) {
+			final FakeBlock fake = blocks.get(location);
+
+			changes.put(location, fake != null ? fake.material.getMaterial().createBlockData() : location.getBlock().getBlockData());
+		}
+
+		try {
+			sendMultiBlockChange.invoke(player, changes, true);
+
+		} catch (final ReflectiveOperationException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	// Sends the fake block, or the real block if fake is null
+	private static void sendBlockChange(Player player, Location location, FakeBlock fake) {
+		final Block block = location.getBlock();
+
+		try {
+			player.sendBlockChange(location, fake != null ? fake.material.getMaterial().createBlockData() : block.getBlockData());
+
+		} catch (final NoSuchMethodError ex) {
+			if (fake != null)
+				player.sendBlockChange(location, fake.material.getMaterial(), (byte) fake.material.getData());
+			else
+				player.sendBlockChange(location, block.getType(), block.getData());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		overrides.remove(event.getPlayer().getUniqueId());
+		pending.remove(event.getPlayer().getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onPluginDisable(PluginDisableEvent event) {
+		if (!event.getPlugin().equals(Remain.getPlugin()))
+			return;
+
+		for (final Player player : Remain.getOnlinePlayers())
+			revertAll(player);
+
+		overrides.clear();
+		expiries.clear();
+		pending.clear();
+
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+	}
+
+	/**
+	 * A fake block shown to a player
+	 */
+	private static final class FakeBlock {
+
+		private final UUID playerId;
+		private final Location location;
+		private final CompMaterial material;
+
+		private FakeBlock(UUID playerId, Location location, CompMaterial material) {
+			this.playerId = playerId;
+			this.location = location;
+			this.material = material;
+		}
+	}
+}
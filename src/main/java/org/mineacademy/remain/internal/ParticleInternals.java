@@ -195,7 +195,7 @@ public enum ParticleInternals {
 			}
 		}
 
-		ReflectionUtil.sendPacket(player, packet);
+		ReflectionUtil.sendCosmeticPackets(player, packet);
 	}
 
 	/**
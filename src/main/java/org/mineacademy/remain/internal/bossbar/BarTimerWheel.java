@@ -0,0 +1,171 @@
+package org.mineacademy.remain.internal.bossbar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.scheduler.BukkitTask;
+import org.mineacademy.remain.util.RemainUtils;
+
+/**
+ * Runs the countdowns of timed boss bars from one shared task instead of one task per player
+ *
+ * The wheel has one slot per tick of a second. A countdown goes into the slot of the tick
+ * it was started on and the task visits one slot per tick, so each countdown advances
+ * exactly once per second and the updates are spread over the whole second.
+ *
+ * Only use from the main thread.
+ */
+final class BarTimerWheel {
+
+	/**
+	 * One slot for each tick of a second
+	 */
+	private static final int SLOTS = 20;
+
+	/**
+	 * The countdowns in each slot
+	 */
+	private final List<Entry>[] slots;
+
+	/**
+	 * The running countdowns by their owner
+	 */
+	private final Map<UUID, Entry> entries = new HashMap<>();
+
+	/**
+	 * The slot the task visits next
+	 */
+	private int tick;
+
+	/**
+	 * The ticking task, or null while no countdown runs
+	 */
+	private BukkitTask task;
+
+	@SuppressWarnings("unchecked")
+	BarTimerWheel() {
+		this.slots = new List[SLOTS];
+
+		for (int i = 0; i < SLOTS; i++)
+			slots[i] = new ArrayList<>();
+	}
+
+	/**
+	 * Start a countdown for the given owner, replacing the running one. It first advances in one second.
+	 *
+	 * @param owner
+	 * @param countdown
+	 */
+	void schedule(UUID owner, Countdown countdown) {
+		cancel(owner);
+
+		final Entry entry = new Entry(owner, countdown);
+
+		entries.put(owner, entry);
+		slots[(tick + SLOTS - 1) % SLOTS].add(entry);
+
+		if (task == null)
+			task = RemainUtils.runTimer(1, this::tick);
+	}
+
+	/**
+	 * Stop the countdown of the given owner, if any
+	 *
+	 * @param owner
+	 */
+	void cancel(UUID owner) {
+		final Entry entry = entries.remove(owner);
+
+		if (entry != null)
+			entry.cancelled = true;
+	}
+
+	/**
+	 * Stop all countdowns and the task
+	 */
+	void clear() {
+		for (final Entry entry : entries.values())
+			entry.cancelled = true;
+
+		entries.clear();
+
+		for (final List<Entry> slot : slots)
+			slot.clear();
+
+		stopTask();
+	}
+
+	// Advances the countdowns of the current slot, countdowns started meanwhile wait for the next round
+	private void tick() {
+		final List<Entry> slot = slots[tick];
+		final int size = slot.size();
+		int kept = 0;
+
+		tick = (tick + 1) % SLOTS;
+
+		for (int i = 0; i < size; i++) {
+			final Entry entry = slot.get(i);
+
+			if (entry.cancelled)
+				continue;
+
+			if (entry.countdown.tick())
+				slot.set(kept++, entry);
+
+			else
+				entries.remove(entry.owner, entry);
+		}
+
+		// Keep countdowns added to this slot while we were ticking it, dropping the finished ones
+		for (int i = size; i < slot.size(); i++)
+			if (!slot.get(i).cancelled)
+				slot.set(kept++, slot.get(i));
+
+		slot.subList(kept, slot.size()).clear();
+
+		if (entries.isEmpty())
+			stopTask();
+	}
+
+	private void stopTask() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+	}
+
+	/**
+	 * A running countdown
+	 */
+	interface Countdown {
+
+		/**
+		 * Advance the countdown by one second
+		 *
+		 * @return false if the countdown is over
+		 */
+		boolean tick();
+	}
+
+	/**
+	 * A countdown in its slot
+	 */
+	private static final class Entry {
+
+		private final UUID owner;
+		private final Countdown countdown;
+
+		/**
+		 * Set when the countdown is replaced or stopped, the entry is removed from its slot on the next visit
+		 */
+		private boolean cancelled;
+
+		private Entry(UUID owner, Countdown countdown) {
+			this.owner = owner;
+			this.countdown = countdown;
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package org.mineacademy.remain.internal.bossbar;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
@@ -17,6 +20,8 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.mineacademy.remain.Remain;
 import org.mineacademy.remain.model.CompBarColor;
 import org.mineacademy.remain.model.CompBarStyle;
@@ -53,14 +58,25 @@ public class BossBarInternals implements Listener {
 	private static boolean isBelowGround = true;
 
 	/**
-	 * The player currently viewing the boss bar
+	 * The player currently viewing the boss bar, read from any thread but only changed on the main thread
 	 */
-	private static HashMap<UUID, EnderDragonEntity> players = new HashMap<>();
+	private static final Map<UUID, EnderDragonEntity> players = new ConcurrentHashMap<>();
 
 	/**
 	 * Currently running timers (for temporary boss bars)
 	 */
-	private static HashMap<UUID, Integer> timers = new HashMap<>();
+	private static final BarTimerWheel timers = new BarTimerWheel();
+
+	/**
+	 * Bars shown to many players at once, by their id
+	 */
+	private static final Map<String, SharedBar> sharedBars = new ConcurrentHashMap<>();
+
+	/**
+	 * The shared bar showing its content on the player's dragon, Minecraft 1.8 and older only.
+	 * A player has a single dragon there, so the last personal or shared bar set wins.
+	 */
+	private static final Map<UUID, SharedBar> dragonOwners = new ConcurrentHashMap<>();
 
 	/**
 	 * The singleton instance
@@ -101,10 +117,16 @@ public class BossBarInternals implements Listener {
 
 			if (ReflectionUtil.isProtocolHack())
 				RemainUtils.runTimer(5, () -> {
-					for (final UUID uuid : players.keySet()) {
-						final Player player = Remain.getPlayerByUUID(uuid);
+					for (final Map.Entry<UUID, EnderDragonEntity> entry : players.entrySet()) {
+						final Player player = Remain.getPlayerByUUID(entry.getKey());
+
+						if (player == null)
+							continue;
 
-						ReflectionUtil.sendPacket(player, players.get(uuid).getTeleportPacket(getDragonLocation(player.getLocation())));
+						final Object packet = entry.getValue().getMovePacket(getDragonLocation(player.getLocation()));
+
+						if (packet != null)
+							ReflectionUtil.sendCosmeticPackets(player, packet);
 					}
 				});
 		}
@@ -123,19 +145,49 @@ public class BossBarInternals implements Listener {
 
 		players.clear();
 
-		for (final int timerID : timers.values())
-			Bukkit.getScheduler().cancelTask(timerID);
 		timers.clear();
+
+		for (final SharedBar bar : sharedBars.values())
+			bar.removeAll();
+		sharedBars.clear();
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onPlayerQuit(PlayerQuitEvent event) {
-		removeBar(event.getPlayer());
+		evict(event.getPlayer());
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onPlayerKick(PlayerKickEvent event) {
-		removeBar(event.getPlayer());
+		evict(event.getPlayer());
+	}
+
+	// Forgets everything we hold for the player, safe to call twice since a kick is followed by a quit
+	private static void evict(Player player) {
+		removeBar(player);
+
+		for (final SharedBar bar : sharedBars.values())
+			bar.removeViewer(player);
+	}
+
+	// Runs the task now if we are on the main thread, otherwise schedules it there keeping the order of calls.
+	// Tasks from other threads are dropped once our plugin is disabled, since its bars were removed and must not be touched off the main thread.
+	private static void runSync(Runnable task) {
+		if (Bukkit.isPrimaryThread()) {
+			task.run();
+
+			return;
+		}
+
+		final JavaPlugin plugin = Remain.getPlugin();
+
+		if (plugin != null && plugin.isEnabled())
+			try {
+				Bukkit.getScheduler().runTask(plugin, task);
+
+			} catch (final IllegalPluginAccessException ex) {
+				// Disabled in the meantime
+			}
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -181,7 +233,8 @@ public class BossBarInternals implements Listener {
 	 * It will remain there until the player logs off or another plugin overrides
 	 * it.<br>
 	 * This method will show a health bar using the given percentage value and will
-	 * cancel any running timers.
+	 * cancel any running timers.<br>
+	 * Safe to call from any thread, the bar is changed on the main thread.
 	 *
 	 * @param player  The player who should see the given message.
 	 * @param message The message shown to the player.<br>
@@ -198,8 +251,55 @@ public class BossBarInternals implements Listener {
 	public static void setMessage(Player player, String message, float percent, CompBarColor color, CompBarStyle style) {
 		Validate.isTrue(0F <= percent && percent <= 100F, "Percent must be between 0F and 100F, but was: " + percent);
 
-		if (hasBar(player))
+		runSync(() -> {
+			dragonOwners.remove(player.getUniqueId());
+
+			setPercentMessage(player, message, percent, color, style);
+		});
+	}
+
+	/**
+	 * Show the content of the shared bar on the player's dragon, replacing any personal bar, Minecraft 1.8 and older only
+	 *
+	 * @param player
+	 * @param owner
+	 */
+	static void setSharedDragon(Player player, SharedBar owner, String message, float percent, CompBarColor color, CompBarStyle style) {
+		setPercentMessage(player, message, percent, color, style);
+
+		if (player.isOnline())
+			dragonOwners.put(player.getUniqueId(), owner);
+	}
+
+	/**
+	 * Return true if the player's dragon currently shows the shared bar
+	 *
+	 * @param player
+	 * @param owner
+	 * @return
+	 */
+	static boolean isSharedDragon(Player player, SharedBar owner) {
+		return dragonOwners.get(player.getUniqueId()) == owner;
+	}
+
+	/**
+	 * Remove the player's dragon only if it shows the shared bar
+	 *
+	 * @param player
+	 * @param owner
+	 */
+	static void removeSharedDragon(Player player, SharedBar owner) {
+		if (isSharedDragon(player, owner))
 			removeBar(player);
+	}
+
+	private static void setPercentMessage(Player player, String message, float percent, CompBarColor color, CompBarStyle style) {
+
+		// The player may have left while this was waiting for the main thread
+		if (!player.isOnline())
+			return;
+
+		resetBar(player);
 
 		final EnderDragonEntity dragon = getDragon(player, message);
 
@@ -223,7 +323,8 @@ public class BossBarInternals implements Listener {
 	 * This method will use the health bar as a decreasing timer, all previously
 	 * started timers will be cancelled.<br>
 	 * The timer starts with a full bar.<br>
-	 * The health bar will be removed automatically if it hits zero.
+	 * The health bar will be removed automatically if it hits zero.<br>
+	 * Safe to call from any thread, the bar is changed on the main thread.
 	 *
 	 * @param player  The player who should see the given timer/message.
 	 * @param message The message shown to the player.<br>
@@ -238,8 +339,20 @@ public class BossBarInternals implements Listener {
 	public static void setMessage(final Player player, String message, int seconds, CompBarColor color, CompBarStyle style) {
 		Validate.isTrue(seconds > 0, "Seconds must be > 1 ");
 
-		if (hasBar(player))
-			removeBar(player);
+		runSync(() -> {
+			dragonOwners.remove(player.getUniqueId());
+
+			setTimedMessage(player, message, seconds, color, style);
+		});
+	}
+
+	private static void setTimedMessage(final Player player, String message, int seconds, CompBarColor color, CompBarStyle style) {
+
+		// The player may have left while this was waiting for the main thread
+		if (!player.isOnline())
+			return;
+
+		resetBar(player);
 
 		final EnderDragonEntity dragon = getDragon(player, message);
 
@@ -255,22 +368,133 @@ public class BossBarInternals implements Listener {
 
 		cancelTimer(player);
 
-		timers.put(player.getUniqueId(), RemainUtils.runTimer(20, 20, () -> {
+		timers.schedule(player.getUniqueId(), () -> {
 			final EnderDragonEntity drag = getDragon(player, "");
 			drag.health -= dragonHealthMinus;
 
 			if (drag.health <= 1) {
 				removeBar(player);
-				cancelTimer(player);
-			} else {
-				sendDragon(drag, player);
+
+				return false;
 			}
-		}).getTaskId());
+
+			sendDragon(drag, player);
+			return true;
+		});
 
 		sendDragon(dragon, player);
 	}
 
-	private static void removeBar(Player player) {
+	/**
+	 * Create or update a bar shown to many players at once. On Minecraft 1.9 and newer
+	 * all viewers share one boss bar so changes are sent once for everyone.
+	 *
+	 * @param id      the unique id of the bar
+	 * @param message the message
+	 * @param percent the percentage of the bar filled, from 0F to 100F
+	 * @param color   the color, or null to keep the current one
+	 * @param style   the style, or null to keep the current one
+	 */
+	public static void setSharedMessage(String id, String message, float percent, CompBarColor color, CompBarStyle style) {
+		Validate.notNull(message, "Message cannot be null");
+		Validate.isTrue(0F <= percent && percent <= 100F, "Percent must be between 0F and 100F, but was: " + percent);
+
+		runSync(() -> {
+			final SharedBar bar = sharedBars.get(id);
+
+			if (bar == null)
+				sharedBars.put(id, new SharedBar(message, percent, color, style));
+			else
+				bar.update(message, percent, color, style);
+		});
+	}
+
+	/**
+	 * Show the shared bar to the player
+	 *
+	 * Off the main thread the bar may still be created by a queued {@link #setSharedMessage(String, String, float, CompBarColor, CompBarStyle)},
+	 * so a missing bar is only checked once this runs on the main thread and printed instead of thrown.
+	 *
+	 * @param id
+	 * @param player
+	 *
+	 * @throws IllegalArgumentException if the bar does not exist, when called from the main thread
+	 */
+	public static void addSharedViewer(String id, Player player) {
+		Validate.notNull(player, "Player cannot be null");
+
+		final boolean calledSync = Bukkit.isPrimaryThread();
+
+		runSync(() -> {
+			final SharedBar bar = sharedBars.get(id);
+
+			if (bar == null) {
+				final IllegalArgumentException ex = new IllegalArgumentException("Shared boss bar " + id + " does not exist, call setSharedMessage first!");
+
+				// A scheduled task has no caller to throw to
+				if (calledSync)
+					throw ex;
+
+				ex.printStackTrace();
+				return;
+			}
+
+			// The player may have left while this was waiting for the main thread
+			if (player.isOnline())
+				bar.addViewer(player);
+		});
+	}
+
+	/**
+	 * Hide the shared bar from the player
+	 *
+	 * @param id
+	 * @param player
+	 */
+	public static void removeSharedViewer(String id, Player player) {
+		runSync(() -> {
+			final SharedBar bar = sharedBars.get(id);
+
+			if (bar != null)
+				bar.removeViewer(player);
+		});
+	}
+
+	/**
+	 * Get the players seeing the shared bar
+	 *
+	 * @param id
+	 * @return the viewers, empty if the bar does not exist
+	 */
+	public static Collection<Player> getSharedViewers(String id) {
+		final SharedBar bar = sharedBars.get(id);
+
+		return bar != null ? bar.getViewers() : Collections.emptyList();
+	}
+
+	/**
+	 * Hide the shared bar from all viewers and forget it
+	 *
+	 * @param id
+	 */
+	public static void removeShared(String id) {
+		runSync(() -> {
+			final SharedBar bar = sharedBars.remove(id);
+
+			if (bar != null)
+				bar.removeAll();
+		});
+	}
+
+	// Removes the native bar before a new message, legacy dragons are kept so only what changed is sent
+	private static void resetBar(Player player) {
+		final EnderDragonEntity dragon = players.get(player.getUniqueId());
+
+		if (dragon instanceof v1_9Native)
+			removeBar(player);
+	}
+
+	static void removeBar(Player player) {
 		if (!hasBar(player))
 			return;
 
@@ -282,6 +506,7 @@ public class BossBarInternals implements Listener {
 			ReflectionUtil.sendPacket(player, getDragon(player, "").getDestroyPacket());
 
 		players.remove(player.getUniqueId());
+		dragonOwners.remove(player.getUniqueId());
 
 		cancelTimer(player);
 	}
@@ -298,11 +523,7 @@ public class BossBarInternals implements Listener {
 	}
 
 	private static void cancelTimer(Player player) {
-		final Integer timerID = timers.remove(player.getUniqueId());
-
-		if (timerID != null) {
-			Bukkit.getScheduler().cancelTask(timerID);
-		}
+		timers.cancel(player.getUniqueId());
 	}
 
 	private static void sendDragon(EnderDragonEntity dragon, Player player) {
@@ -312,8 +533,10 @@ public class BossBarInternals implements Listener {
 			bar.addPlayer(player);
 			bar.setProgress(dragon.health / dragon.getMaxHealth());
 		} else {
-			ReflectionUtil.sendPacket(player, dragon.getMetaPacket(dragon.getWatcher()));
-			ReflectionUtil.sendPacket(player, dragon.getTeleportPacket(getDragonLocation(player.getLocation())));
+			final Object[] packets = dragon.getUpdatePackets(getDragonLocation(player.getLocation()));
+
+			if (packets.length > 0)
+				ReflectionUtil.sendCosmeticPackets(player, packets);
 		}
 	}
 
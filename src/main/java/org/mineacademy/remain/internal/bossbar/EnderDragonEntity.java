@@ -1,5 +1,8 @@
 package org.mineacademy.remain.internal.bossbar;
 
+import java.lang.reflect.Method;
+import java.util.Objects;
+
 import org.bukkit.Location;
 import org.mineacademy.remain.model.CompBarColor;
 import org.mineacademy.remain.model.CompBarStyle;
@@ -30,6 +33,39 @@ abstract class EnderDragonEntity {
 	protected CompBarColor barColor;
 	protected CompBarStyle barStyle;
 
+	/**
+	 * DataWatcher#watch(int, Object) updating a value of an existing watcher, null if not found
+	 */
+	private static Method watchMethod;
+
+	/**
+	 * Did we already look for {@link #watchMethod}?
+	 */
+	private static boolean watchMethodSearched;
+
+	/**
+	 * The watcher reused for metadata packets, null until the first one is sent
+	 */
+	private Object watcher;
+
+	/**
+	 * The name, health and visibility last sent to the client, valid if {@link #metaSent} is true
+	 */
+	private boolean metaSent;
+	private String sentName;
+	private float sentHealth;
+	private boolean sentVisible;
+
+	/**
+	 * The location last sent to the client in packet units, valid if {@link #locationSent} is true
+	 */
+	private boolean locationSent;
+	private int sentX;
+	private int sentY;
+	private int sentZ;
+	private byte sentYaw;
+	private byte sentPitch;
+
 	EnderDragonEntity(String name, Location loc, int percent) {
 		this.name = name;
 		this.x = loc.getBlockX();
@@ -143,6 +179,106 @@ abstract class EnderDragonEntity {
 		maxHealth = max;
 	}
 
+	/**
+	 * Get the packets bringing the client up to date with the current name, health, visibility
+	 * and the given location, leaving out what did not change since the last call
+	 *
+	 * @param loc
+	 * @return the packets, empty if nothing changed
+	 */
+	public final Object[] getUpdatePackets(Location loc) {
+		final Object meta = getMetaUpdatePacket();
+		final Object move = getMovePacket(loc);
+
+		if (meta != null && move != null)
+			return new Object[] { meta, move };
+
+		if (meta != null)
+			return new Object[] { meta };
+
+		return move != null ? new Object[] { move } : new Object[0];
+	}
+
+	/**
+	 * Get the teleport packet if the location differs from the last one sent
+	 *
+	 * @param loc
+	 * @return the packet, or null if the client already has this location
+	 */
+	public final Object getMovePacket(Location loc) {
+		final int x = (int) Math.floor(loc.getX() * 32.0D);
+		final int y = (int) Math.floor(loc.getY() * 32.0D);
+		final int z = (int) Math.floor(loc.getZ() * 32.0D);
+		final byte yaw = (byte) ((int) (loc.getYaw() * 256.0F / 360.0F));
+		final byte pitch = (byte) ((int) (loc.getPitch() * 256.0F / 360.0F));
+
+		if (locationSent && x == sentX && y == sentY && z == sentZ && yaw == sentYaw && pitch == sentPitch)
+			return null;
+
+		locationSent = true;
+		sentX = x;
+		sentY = y;
+		sentZ = z;
+		sentYaw = yaw;
+		sentPitch = pitch;
+
+		return getTeleportPacket(loc);
+	}
+
+	// Returns the metadata packet if name, health or visibility changed, reusing the watcher where possible
+	private Object getMetaUpdatePacket() {
+		if (metaSent && health == sentHealth && visible == sentVisible && Objects.equals(name, sentName))
+			return null;
+
+		if (watcher == null || !updateWatcher(watcher))
+			watcher = getWatcher();
+
+		metaSent = true;
+		sentName = name;
+		sentHealth = health;
+		sentVisible = visible;
+
+		return getMetaPacket(watcher);
+	}
+
+	/**
+	 * Write the current name, health and visibility into a watcher made by {@link #getWatcher()}
+	 *
+	 * @param watcher
+	 * @return false if the watcher cannot be updated and a new one must be made
+	 */
+	protected abstract boolean updateWatcher(Object watcher);
+
+	/**
+	 * Write the current name, health and visibility into the watcher using DataWatcher#watch
+	 *
+	 * @param watcher
+	 * @param visibilityIndex the watcher index the visibility flag was added at
+	 * @return false if DataWatcher#watch is not available
+	 */
+	protected final boolean watch(Object watcher, int visibilityIndex) {
+		if (!watchMethodSearched) {
+			watchMethod = ReflectionUtil.getMethod(watcher.getClass(), "watch", int.class, Object.class);
+			watchMethodSearched = true;
+		}
+
+		if (watchMethod == null)
+			return false;
+
+		try {
+			watchMethod.invoke(watcher, visibilityIndex, visible ? (byte) 0 : (byte) 0x20);
+			watchMethod.invoke(watcher, 6, health);
+			watchMethod.invoke(watcher, 10, name);
+
+			return true;
+
+		} catch (final ReflectiveOperationException | RuntimeException ex) {
+			ex.printStackTrace();
+
+			return false;
+		}
+	}
+
 	public abstract Object getSpawnPacket();
 
 	public abstract Object getDestroyPacket();
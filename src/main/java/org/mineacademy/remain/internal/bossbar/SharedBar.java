@@ -0,0 +1,161 @@
+package org.mineacademy.remain.internal.bossbar;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.mineacademy.remain.model.CompBarColor;
+import org.mineacademy.remain.model.CompBarStyle;
+import org.mineacademy.remain.util.MinecraftVersion;
+import org.mineacademy.remain.util.MinecraftVersion.V;
+
+/**
+ * Represents one boss bar shown to many players, see {@link BossBarInternals#setSharedMessage(String, String, float, CompBarColor, CompBarStyle)}
+ *
+ * On Minecraft 1.9 and newer all viewers share one native boss bar, so title and
+ * progress are updated once for everyone. On older versions each viewer gets
+ * an own fake dragon with the same content.
+ *
+ * A player only has one dragon on older versions, so adding a viewer replaces
+ * their personal bar or another shared bar, and setting a personal bar replaces
+ * this one. A replaced shared bar keeps the player as viewer but stops updating
+ * or removing their dragon until they are added again.
+ */
+final class SharedBar {
+
+	/**
+	 * The native bar, or null on Minecraft 1.8 and older
+	 */
+	private final BossBar bar;
+
+	/**
+	 * The players seeing this bar, changed on the main thread only but read from any thread
+	 */
+	private final Map<UUID, Player> viewers = new ConcurrentHashMap<>();
+
+	private String message;
+	private float percent;
+	private CompBarColor color;
+	private CompBarStyle style;
+
+	SharedBar(String message, float percent, CompBarColor color, CompBarStyle style) {
+		this.message = message;
+		this.percent = percent;
+		this.color = color;
+		this.style = style;
+
+		if (MinecraftVersion.atLeast(V.v1_9)) {
+			this.bar = Bukkit.createBossBar(message, color != null ? BarColor.valueOf(color.toString()) : BarColor.PINK, style != null ? BarStyle.valueOf(style.toString()) : BarStyle.SOLID);
+
+			bar.setProgress(percent / 100D);
+
+		} else
+			this.bar = null;
+	}
+
+	/**
+	 * Change the content, only what differs is sent to the viewers
+	 *
+	 * @param message
+	 * @param percent
+	 * @param color the new color, or null to keep the current one
+	 * @param style the new style, or null to keep the current one
+	 */
+	void update(String message, float percent, CompBarColor color, CompBarStyle style) {
+		final boolean titleChanged = !message.equals(this.message);
+		final boolean progressChanged = percent != this.percent;
+		final boolean colorChanged = color != null && color != this.color;
+		final boolean styleChanged = style != null && style != this.style;
+
+		if (!titleChanged && !progressChanged && !colorChanged && !styleChanged)
+			return;
+
+		this.message = message;
+		this.percent = percent;
+
+		if (colorChanged)
+			this.color = color;
+
+		if (styleChanged)
+			this.style = style;
+
+		if (bar == null) {
+			for (final Player viewer : viewers.values())
+				if (BossBarInternals.isSharedDragon(viewer, this))
+					BossBarInternals.setSharedDragon(viewer, this, message, percent, this.color, this.style);
+
+			return;
+		}
+
+		// Each setter sends a packet to all viewers, so only call those that changed
+		if (titleChanged)
+			bar.setTitle(message);
+
+		if (progressChanged)
+			bar.setProgress(percent / 100D);
+
+		if (colorChanged)
+			bar.setColor(BarColor.valueOf(color.toString()));
+
+		if (styleChanged)
+			bar.setStyle(BarStyle.valueOf(style.toString()));
+	}
+
+	/**
+	 * Show the bar to the player, on older versions this takes over their dragon again
+	 *
+	 * @param player
+	 */
+	void addViewer(Player player) {
+		final boolean added = viewers.put(player.getUniqueId(), player) != player;
+
+		if (bar != null) {
+			if (added)
+				bar.addPlayer(player);
+
+		} else if (added || !BossBarInternals.isSharedDragon(player, this))
+			BossBarInternals.setSharedDragon(player, this, message, percent, color, style);
+	}
+
+	/**
+	 * Hide the bar from the player
+	 *
+	 * @param player
+	 */
+	void removeViewer(Player player) {
+		final Player viewer = viewers.remove(player.getUniqueId());
+
+		if (viewer == null)
+			return;
+
+		if (bar != null)
+			bar.removePlayer(viewer);
+		else
+			BossBarInternals.removeSharedDragon(viewer, this);
+	}
+
+	/**
+	 * Hide the bar from everyone
+	 */
+	void removeAll() {
+		for (final Player viewer : new ArrayList<>(viewers.values()))
+			removeViewer(viewer);
+	}
+
+	/**
+	 * Get the players seeing this bar
+	 *
+	 * @return
+	 */
+	Collection<Player> getViewers() {
+		return Collections.unmodifiableCollection(viewers.values());
+	}
+}
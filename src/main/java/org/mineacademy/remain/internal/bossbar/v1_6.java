@@ -141,6 +141,11 @@ class v1_6 extends EnderDragonEntity {
 		return packet;
 	}
 
+	@Override
+	protected boolean updateWatcher(Object watcher) {
+		return watch(watcher, 0);
+	}
+
 	@Override
 	public Object getWatcher() {
 		final Class<?> watcher_class = ReflectionUtil.getNMSClass("DataWatcher");
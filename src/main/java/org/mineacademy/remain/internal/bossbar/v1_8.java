@@ -108,6 +108,11 @@ class v1_8 extends EnderDragonEntity {
 		return packet;
 	}
 
+	@Override
+	protected boolean updateWatcher(Object watcher) {
+		return watch(watcher, 5);
+	}
+
 	@Override
 	public Object getWatcher() {
 		final Class<?> Entity = ReflectionUtil.getNMSClass("Entity");
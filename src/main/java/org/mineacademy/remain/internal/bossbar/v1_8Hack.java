@@ -110,6 +110,11 @@ class v1_8Hack extends EnderDragonEntity {
 		return packet;
 	}
 
+	@Override
+	protected boolean updateWatcher(Object watcher) {
+		return watch(watcher, 5);
+	}
+
 	@Override
 	public Object getWatcher() {
 		final Class<?> Entity = ReflectionUtil.getNMSClass("Entity");
@@ -62,6 +62,11 @@ class v1_9Native extends EnderDragonEntity {
 		return null;
 	}
 
+	@Override
+	protected boolean updateWatcher(Object watcher) {
+		return false;
+	}
+
 	@Override
 	public Object getWatcher() {
 		return null;
@@ -1,7 +1,11 @@
 package org.mineacademy.remain.model;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.Material;
@@ -10,7 +14,6 @@ import org.bukkit.entity.EntityType;
 import org.bukkit.inventory.ItemStack;
 import org.mineacademy.remain.util.MinecraftVersion;
 import org.mineacademy.remain.util.MinecraftVersion.V;
-import org.mineacademy.remain.util.ReflectionUtil;
 import org.mineacademy.remain.util.RemainUtils;
 
 import lombok.Getter;
@@ -895,8 +898,76 @@ public enum CompMaterial {
 	DEAD_BUBBLE_CORAL_FAN("STONE", 0),
 	DEAD_BUBBLE_CORAL_WALL_FAN("STONE", 0);
 
-	// Holds history of last called translated names, for performance.
-	private static HashMap<String, CompMaterial> cachedSearch = new HashMap<>();
+	/**
+	 * Our materials by their name
+	 */
+	private static final Map<String, CompMaterial> byName = new HashMap<>();
+
+	/**
+	 * Ids of the legacy and alternative names, used to pack a name and data value into one long key
+	 */
+	private static final Map<String, Integer> legacyNameIds = new HashMap<>();
+
+	/**
+	 * The first material in declaration order by its packed legacy name and data value
+	 */
+	private static final LegacyIndex byLegacy;
+
+	/**
+	 * The first material in declaration order by its alternative name id
+	 */
+	private static final CompMaterial[] byAlternative;
+
+	/**
+	 * Our materials by the ordinal of the Bukkit {@link Material}
+	 */
+	private static final CompMaterial[] byMaterial;
+
+	static {
+		Startup.constructionTime = System.nanoTime() - Startup.constructionStart;
+
+		final long indexStart = System.nanoTime();
+		final CompMaterial[] values = values();
+
+		for (final CompMaterial mat : values) {
+			legacyNameIds.putIfAbsent(mat.legacyName, legacyNameIds.size());
+
+			if (mat.alternativeName != null)
+				legacyNameIds.putIfAbsent(mat.alternativeName, legacyNameIds.size());
+		}
+
+		byLegacy = new LegacyIndex(values.length);
+		byAlternative = new CompMaterial[legacyNameIds.size()];
+
+		for (final CompMaterial mat : values) {
+			byLegacy.putIfAbsent(packLegacy(legacyNameIds.get(mat.legacyName), mat.data), mat);
+
+			if (mat.alternativeName != null) {
+				final int id = legacyNameIds.get(mat.alternativeName);
+
+				if (byAlternative[id] == null)
+					byAlternative[id] = mat;
+			}
+		}
+
+		final Map<String, CompMaterial> byLegacyName = new HashMap<>();
+
+		for (final CompMaterial mat : values) {
+			byName.put(mat.name(), mat);
+			byLegacyName.putIfAbsent(mat.legacyName, mat);
+		}
+
+		final Material[] materials = Material.values();
+		byMaterial = new CompMaterial[materials.length];
+
+		for (final Material material : materials) {
+			final CompMaterial mat = byName.get(material.name());
+
+			byMaterial[material.ordinal()] = mat != null ? mat : byLegacyName.get(material.name());
+		}
+
+		Startup.indexTime = System.nanoTime() - indexStart;
+	}
 
 	/**
 	 * The name of the material in Minecraft 1.12 and older (may or may not be the
@@ -909,10 +980,9 @@ public enum CompMaterial {
 	private final String legacyName;
 
 	/**
-	 * Returns the correct Material representation for your MC version.
+	 * The Material representation for your MC version, resolved on first use.
 	 */
-	@Getter
-	private final Material material;
+	private Material material;
 
 	/**
 	 * Holds data value for legacy material name.
@@ -955,18 +1025,47 @@ public enum CompMaterial {
 		this.alternativeName = alternativeName;
 		this.data = data;
 
-		this.material = ReflectionUtil.lookupEnumSilent(Material.class, MinecraftVersion.atLeast(V.v1_13) ? name() : parseLegacyName(legacyName));
-		Objects.requireNonNull(material, "Could not convert CompMaterial." + this + " to Bukkit Material!");
+
+		if (ordinal() == 0)
+			Startup.constructionStart = System.nanoTime();
+	}
+
+	/**
+	 * Returns the correct Material representation for your MC version.
+	 *
+	 * @return the material
+	 */
+	public final Material getMaterial() {
+		Material mat = material;
+
+		// Resolving is idempotent so racing threads store the same value
+		if (mat == null)
+			material = mat = resolveMaterial();
+
+		return mat;
 	}
 
-	// Handles Minecraft below 1.12 and replaces non-existing Materials to STONE.
-	private static String parseLegacyName(String name) {
-		try {
-			return Material.valueOf(name).toString();
+	// Finds the Bukkit material on first use. Replaces Materials that do not exist below 1.13 with STONE.
+	private Material resolveMaterial() {
+		final long start = System.nanoTime();
+		Material mat;
+
+		if (MinecraftVersion.atLeast(V.v1_13))
+			mat = MaterialNames.get(name());
+
+		else {
+			mat = MaterialNames.get(legacyName);
 
-		} catch (final IllegalArgumentException ex) {
-			return "STONE";
+			if (mat == null)
+				mat = Material.STONE;
 		}
+
+		Objects.requireNonNull(mat, "Could not convert CompMaterial." + this + " to Bukkit Material!");
+
+		Startup.resolved.incrementAndGet();
+		Startup.resolveTime.addAndGet(System.nanoTime() - start);
+
+		return mat;
 	}
 
 	/**
@@ -999,9 +1098,9 @@ public enum CompMaterial {
 	 * @return the material
 	 */
 	public final Material toMaterial() {
-		final Material mat = Material.matchMaterial(toString());
+		final Material mat = MaterialNames.get(toString());
 
-		return mat != null ? mat : Material.matchMaterial(legacyName);
+		return mat != null ? mat : MaterialNames.get(legacyName);
 	}
 
 	/**
@@ -1013,7 +1112,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public final boolean is(Material mat) {
-		return material == mat;
+		return getMaterial() == mat;
 	}
 
 	/**
@@ -1106,7 +1205,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isAir(Material material) {
-		return material == null || nameEquals(material, "AIR", "CAVE_AIR", "VOID_AIR");
+		return material == null || CompMaterialCategory.AIR.has(material);
 	}
 
 	/**
@@ -1116,7 +1215,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isHorseArmor(Material mat) {
-		return nameEquals(mat, "BARDING", "HORSE_ARMOR");
+		return CompMaterialCategory.HORSE_ARMOR.has(mat);
 	}
 
 	/**
@@ -1126,7 +1225,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isCarpet(Material mat) {
-		return nameContains(mat, "CARPET");
+		return CompMaterialCategory.CARPET.has(mat);
 	}
 
 	/**
@@ -1137,7 +1236,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isHardClay(Material mat) {
-		return nameContains(mat, "STAINED_CLAY", "HARD_CLAY", "TERRACOTTA");
+		return CompMaterialCategory.HARD_CLAY.has(mat);
 	}
 
 	/**
@@ -1147,7 +1246,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isLeash(Material mat) {
-		return nameEquals(mat, "LEASH", "LEAD");
+		return CompMaterialCategory.LEASH.has(mat);
 	}
 
 	/**
@@ -1157,7 +1256,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isHeavyPressurePlate(Material mat) {
-		return nameContains(mat, "IRON_PLATE", "GOLD_PLATE", "WEIGHTED_PRESSURE_PLATE");
+		return CompMaterialCategory.HEAVY_PRESSURE_PLATE.has(mat);
 	}
 
 	/**
@@ -1167,7 +1266,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isFirework(Material mat) {
-		return nameContains(mat, "FIREWORK");
+		return CompMaterialCategory.FIREWORK.has(mat);
 	}
 
 	/**
@@ -1177,7 +1276,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isLog(Material mat) {
-		return nameEquals(mat, "LOG", "LOG_2", "_LOG");
+		return CompMaterialCategory.LOG.has(mat);
 	}
 
 	/**
@@ -1187,9 +1286,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isWoodButton(Material mat) {
-		final String n = mat.toString();
-
-		return n.endsWith("_BUTTON") && !n.equals("STONE_BUTTON");
+		return CompMaterialCategory.WOOD_BUTTON.has(mat);
 	}
 
 	/**
@@ -1199,7 +1296,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isRedstoneLamp(Material mat) {
-		return nameContains(mat, "REDSTONE_LAMP");
+		return CompMaterialCategory.REDSTONE_LAMP.has(mat);
 	}
 
 	/**
@@ -1209,7 +1306,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isMonsterEgg(Material mat) {
-		return nameContains(mat, "MONSTER_EGG", "_SPAWN_EGG");
+		return CompMaterialCategory.MONSTER_EGG.has(mat);
 	}
 
 	/**
@@ -1219,7 +1316,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isSapling(Material mat) {
-		return nameContains(mat, "SAPLING") && !mat.toString().startsWith("POTTED");
+		return CompMaterialCategory.SAPLING.has(mat);
 	}
 
 	/**
@@ -1229,7 +1326,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isLongGrass(Material mat) {
-		return nameEquals(mat, "LONG_GRASS", "TALL_GRASS", "FERN", "DEAD_BUSH") && !mat.toString().startsWith("POTTED");
+		return CompMaterialCategory.LONG_GRASS.has(mat);
 	}
 
 	/**
@@ -1239,7 +1336,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isDoublePlant(Material mat) {
-		return nameEquals(mat, "DOUBLE_PLANT", "SUNFLOWER", "LILAC", "TALL_GRASS", "LARGE_FERN", "ROSE_BUSH", "PEONY", "TALL_SEAGRASS");
+		return CompMaterialCategory.DOUBLE_PLANT.has(mat);
 	}
 
 	/**
@@ -1259,9 +1356,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final boolean isSkull(Material mat) {
-		final String name = mat.toString();
-
-		return (name.endsWith("_HEAD") || name.endsWith("_SKULL")) && !name.contains("WALL");
+		return CompMaterialCategory.SKULL.has(mat);
 	}
 
 	/**
@@ -1271,30 +1366,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static boolean isTrapDoor(Material mat) {
-		final String name = mat.toString();
-
-		return name.contains("TRAP_DOOR") || name.contains("TRAPDOOR");
-	}
-
-	// Utility method for evaluating matches.
-	private static final boolean nameContains(Material mat, String... names) {
-		final String matName = mat.toString();
-
-		for (final String name : names)
-			if (matName.contains(name))
-				return true;
-
-		return false;
-	}
-
-	private static final boolean nameEquals(Material mat, String... names) {
-		final String matName = mat.toString();
-
-		for (final String name : names)
-			if (matName.equals(name))
-				return true;
-
-		return false;
+		return CompMaterialCategory.TRAP_DOOR.has(mat);
 	}
 
 	/**
@@ -1389,15 +1461,7 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static final CompMaterial fromMaterial(Material mat) {
-		try {
-			return CompMaterial.valueOf(mat.toString());
-
-		} catch (final IllegalArgumentException e) {
-			for (final CompMaterial xmat : CompMaterial.values())
-				if (xmat.legacyName.equals(mat.toString()))
-					return xmat;
-		}
-		return null;
+		return byMaterial[mat.ordinal()];
 	}
 
 	/**
@@ -1412,20 +1476,20 @@ public enum CompMaterial {
 		// try to resolve common pitfalls and emulate the material enum writing style
 		key = key.replace(" ", "_").toUpperCase();
 
-		try {
-			return CompMaterial.valueOf(key);
+		final CompMaterial mat = byName.get(key);
 
-		} catch (final IllegalArgumentException e) {
-			CompMaterial legacy = null;
-			final String[] split = key.split(":");
+		if (mat != null)
+			return mat;
 
-			if (split.length == 1)
-				legacy = fromLegacy(key, (byte) 0);
-			else
-				legacy = fromLegacy(split[0], (byte) Integer.parseInt(split[1]));
+		CompMaterial legacy = null;
+		final String[] split = key.split(":");
 
-			return legacy;
-		}
+		if (split.length == 1)
+			legacy = fromLegacy(key, (byte) 0);
+		else
+			legacy = fromLegacy(split[0], (byte) Integer.parseInt(split[1]));
+
+		return legacy;
 	}
 
 	/**
@@ -1439,36 +1503,35 @@ public enum CompMaterial {
 		// try to resolve common pitfalls and emulate the material enum writing style
 		name = name.replace(" ", "_").toUpperCase();
 
-		if (cachedSearch.containsKey(name + "," + data))
-			return cachedSearch.get(name + "," + data);
+		final Integer nameId = legacyNameIds.get(name);
 
-		// First search to directly match legacy name
-		for (final CompMaterial mat : CompMaterial.values())
-			if (name.equals(mat.legacyName) && mat.data == data) {
-				cachedSearch.put(mat.legacyName + "," + data, mat);
-
-				return mat;
-			}
+		if (nameId != null) {
+			final CompMaterial legacy = byLegacy.get(packLegacy(nameId, data));
+			final CompMaterial alternative = byAlternative[nameId];
 
-			else if (mat.alternativeName != null && mat.alternativeName.equals(name)) {
-				cachedSearch.put(mat.alternativeName + "," + data, mat);
+			// Whichever is declared first wins, as when searching all values in order
+			if (legacy != null && (alternative == null || legacy.ordinal() < alternative.ordinal()))
+				return legacy;
 
-				return mat;
-			}
+			if (alternative != null)
+				return alternative;
+		}
 
 		// What if we call a modern name but still want to assert data value?
 		// No problem, just parse it and search with the legacy name again.
-		try {
-			final CompMaterial modern = valueOf(name);
+		final CompMaterial modern = byName.get(name);
 
+		if (modern != null && !modern.legacyName.equals(name))
 			return fromLegacy(modern.legacyName, data);
 
-		} catch (final IllegalArgumentException ex) {
-		}
-
 		return null;
 	}
 
+	// Packs the legacy name id and data value into one key
+	private static long packLegacy(int nameId, int data) {
+		return (long) nameId << 32 | data & 0xFFFFFFFFL;
+	}
+
 	/**
 	 * Attempts to parse a Material from a given ID and data
 	 *
@@ -1476,13 +1539,184 @@ public enum CompMaterial {
 	 * @return
 	 */
 	public static Material fromId(int id) {
-		for (final Material mat : Material.values())
-			if (MinecraftVersion.atLeast(V.v1_13)) {
-				if (mat.toString().startsWith("LEGACY_") && mat.getId() == id)
-					return mat;
-			} else if (mat.getId() == id)
-				return mat;
-
-		throw new RuntimeException("Unable to resolve Material ID " + id);
+		final Material[] byId = IdIndex.byId;
+		final Material mat = id >= 0 && id < byId.length ? byId[id] : null;
+
+		if (mat == null)
+			throw new RuntimeException("Unable to resolve Material ID " + id);
+
+		return mat;
+	}
+
+	/**
+	 * Get a summary of how long loading this class and resolving materials took,
+	 * useful to print when debugging the plugin startup time
+	 *
+	 * @return
+	 */
+	public static String getStartupReport() {
+		return String.format("Loaded %d materials in %.2f ms, indexed in %.2f ms, name map built in %.2f ms, resolved %d Bukkit materials in %.2f ms",
+				values().length,
+				Startup.constructionTime / 1_000_000D,
+				Startup.indexTime / 1_000_000D,
+				Startup.nameMapTime / 1_000_000D,
+				Startup.resolved.get(),
+				Startup.resolveTime.get() / 1_000_000D);
+	}
+
+	/**
+	 * Timings for {@link #getStartupReport()}, kept outside of the enum
+	 * so constructors can write to them before our static fields exist
+	 */
+	private static final class Startup {
+
+		/**
+		 * When the first constant was constructed
+		 */
+		private static long constructionStart;
+
+		/**
+		 * How long constructing all constants took
+		 */
+		private static long constructionTime;
+
+		/**
+		 * How long building the lookup indexes took
+		 */
+		private static long indexTime;
+
+		/**
+		 * How long building {@link MaterialNames} took
+		 */
+		private static volatile long nameMapTime;
+
+		/**
+		 * How many constants resolved their Bukkit material
+		 */
+		private static final AtomicInteger resolved = new AtomicInteger();
+
+		/**
+		 * The total time spent resolving Bukkit materials
+		 */
+		private static final AtomicLong resolveTime = new AtomicLong();
+	}
+
+	/**
+	 * Bukkit materials by their name, built in one pass on first use so
+	 * resolving a missing material does not throw and catch an exception
+	 */
+	private static final class MaterialNames {
+
+		/**
+		 * The materials by their exact enum name
+		 */
+		private static final Map<String, Material> byName = new HashMap<>();
+
+		static {
+			final long start = System.nanoTime();
+
+			for (final Material material : Material.values())
+				byName.put(material.name(), material);
+
+			Startup.nameMapTime = System.nanoTime() - start;
+		}
+
+		// Returns the material by its exact name or null
+		private static Material get(String name) {
+			return byName.get(name);
+		}
+	}
+
+	/**
+	 * Materials by their legacy id, built on first use since ids are rarely used
+	 */
+	private static final class IdIndex {
+
+		/**
+		 * The first material in declaration order by its id, or null
+		 */
+		private static final Material[] byId;
+
+		static {
+			final boolean modern = MinecraftVersion.atLeast(V.v1_13);
+			Material[] index = new Material[512];
+
+			for (final Material mat : Material.values()) {
+				if (modern && !mat.toString().startsWith("LEGACY_"))
+					continue;
+
+				final int id = mat.getId();
+
+				if (id < 0)
+					continue;
+
+				if (id >= index.length)
+					index = Arrays.copyOf(index, Math.max(id + 1, index.length * 2));
+
+				if (index[id] == null)
+					index[id] = mat;
+			}
+
+			byId = index;
+		}
+	}
+
+	/**
+	 * An immutable open addressing table from packed legacy keys to materials, avoiding boxed keys
+	 */
+	private static final class LegacyIndex {
+
+		/**
+		 * The packed keys
+		 */
+		private final long[] keys;
+
+		/**
+		 * The materials, null where the slot is empty
+		 */
+		private final CompMaterial[] values;
+
+		/**
+		 * The bit mask to wrap indexes, the table size minus one
+		 */
+		private final int mask;
+
+		private LegacyIndex(int expectedSize) {
+			final int size = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+
+			this.keys = new long[size];
+			this.values = new CompMaterial[size];
+			this.mask = size - 1;
+		}
+
+		// Only called while building the index in the static initializer
+		private void putIfAbsent(long key, CompMaterial mat) {
+			int slot = slot(key);
+
+			while (values[slot] != null) {
+				if (keys[slot] == key)
+					return;
+
+				slot = slot + 1 & mask;
+			}
+
+			keys[slot] = key;
+			values[slot] = mat;
+		}
+
+		private CompMaterial get(long key) {
+			for (int slot = slot(key); values[slot] != null; slot = slot + 1 & mask)
+				if (keys[slot] == key)
+					return values[slot];
+
+			return null;
+		}
+
+		// Spreads the key bits so consecutive name ids do not cluster
+		private int slot(long key) {
+			final long hash = key * 0x9E3779B97F4A7C15L;
+
+			return (int) (hash ^ hash >>> 32) & mask;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package org.mineacademy.remain.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Material;
+
+import lombok.Getter;
+
+/**
+ * Represents a group of materials such as logs or carpets, evaluated once
+ * for all materials of the running server version
+ *
+ * Each material has a bit mask of the categories it belongs to, so checking
+ * a category is one array load. Plugins can add own categories with
+ * {@link #register(String, Predicate)}, up to 64 categories in total.
+ */
+public final class CompMaterialCategory {
+
+	/**
+	 * All materials of the running server version
+	 */
+	private static final Material[] materials = Material.values();
+
+	/**
+	 * The category bits of each material by its ordinal. Replaced as a whole
+	 * when a category is registered, so readers never see a half built array.
+	 */
+	private static volatile long[] masks = new long[materials.length];
+
+	/**
+	 * Registered categories by their name
+	 */
+	private static final Map<String, CompMaterialCategory> byName = new LinkedHashMap<>();
+
+	public static final CompMaterialCategory AIR = register("AIR", mat -> nameEquals(mat, "AIR", "CAVE_AIR", "VOID_AIR"));
+	public static final CompMaterialCategory HORSE_ARMOR = register("HORSE_ARMOR", mat -> nameEquals(mat, "BARDING", "HORSE_ARMOR"));
+	public static final CompMaterialCategory CARPET = register("CARPET", mat -> nameContains(mat, "CARPET"));
+	public static final CompMaterialCategory HARD_CLAY = register("HARD_CLAY", mat -> nameContains(mat, "STAINED_CLAY", "HARD_CLAY", "TERRACOTTA"));
+	public static final CompMaterialCategory LEASH = register("LEASH", mat -> nameEquals(mat, "LEASH", "LEAD"));
+	public static final CompMaterialCategory HEAVY_PRESSURE_PLATE = register("HEAVY_PRESSURE_PLATE", mat -> nameContains(mat, "IRON_PLATE", "GOLD_PLATE", "WEIGHTED_PRESSURE_PLATE"));
+	public static final CompMaterialCategory FIREWORK = register("FIREWORK", mat -> nameContains(mat, "FIREWORK"));
+	public static final CompMaterialCategory LOG = register("LOG", mat -> nameEquals(mat, "LOG", "LOG_2", "_LOG"));
+	public static final CompMaterialCategory WOOD_BUTTON = register("WOOD_BUTTON", mat -> mat.name().endsWith("_BUTTON") && !mat.name().equals("STONE_BUTTON"));
+	public static final CompMaterialCategory REDSTONE_LAMP = register("REDSTONE_LAMP", mat -> nameContains(mat, "REDSTONE_LAMP"));
+	public static final CompMaterialCategory MONSTER_EGG = register("MONSTER_EGG", mat -> nameContains(mat, "MONSTER_EGG", "_SPAWN_EGG"));
+	public static final CompMaterialCategory SAPLING = register("SAPLING", mat -> nameContains(mat, "SAPLING") && !mat.name().startsWith("POTTED"));
+	public static final CompMaterialCategory LONG_GRASS = register("LONG_GRASS", mat -> nameEquals(mat, "LONG_GRASS", "TALL_GRASS", "FERN", "DEAD_BUSH") && !mat.name().startsWith("POTTED"));
+	public static final CompMaterialCategory DOUBLE_PLANT = register("DOUBLE_PLANT", mat -> nameEquals(mat, "DOUBLE_PLANT", "SUNFLOWER", "LILAC", "TALL_GRASS", "LARGE_FERN", "ROSE_BUSH", "PEONY", "TALL_SEAGRASS"));
+	public static final CompMaterialCategory SKULL = register("SKULL", mat -> (mat.name().endsWith("_HEAD") || mat.name().endsWith("_SKULL")) && !mat.name().contains("WALL"));
+	public static final CompMaterialCategory TRAP_DOOR = register("TRAP_DOOR", mat -> nameContains(mat, "TRAP_DOOR", "TRAPDOOR"));
+
+	/**
+	 * The category name
+	 */
+	@Getter
+	private final String name;
+
+	/**
+	 * The single bit of this category in the material masks
+	 */
+	private final long bit;
+
+	private CompMaterialCategory(String name, long bit) {
+		this.name = name;
+		this.bit = bit;
+	}
+
+	/**
+	 * Return true if the material belongs to this category
+	 *
+	 * @param mat
+	 * @return
+	 */
+	public boolean has(Material mat) {
+		return mat != null && (masks[mat.ordinal()] & bit) != 0;
+	}
+
+	/**
+	 * Get all materials in this category
+	 *
+	 * @return
+	 */
+	public List<Material> getMaterials() {
+		final long[] masks = CompMaterialCategory.masks;
+		final List<Material> list = new ArrayList<>();
+
+		for (final Material mat : materials)
+			if ((masks[mat.ordinal()] & bit) != 0)
+				list.add(mat);
+
+		return list;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Registration
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Register a new category, evaluating the filter for every material right away
+	 *
+	 * @param name the unique category name
+	 * @param filter returns true for materials in the category
+	 * @return the new category
+	 */
+	public static synchronized CompMaterialCategory register(String name, Predicate<Material> filter) {
+		Validate.isTrue(!byName.containsKey(name), "Material category " + name + " is already registered!");
+		Validate.isTrue(byName.size() < Long.SIZE, "Cannot register more than " + Long.SIZE + " material categories!");
+
+		final CompMaterialCategory category = new CompMaterialCategory(name, 1L << byName.size());
+		final long[] updated = Arrays.copyOf(masks, masks.length);
+
+		for (final Material mat : materials)
+			if (filter.test(mat))
+				updated[mat.ordinal()] |= category.bit;
+
+		masks = updated;
+		byName.put(name, category);
+
+		return category;
+	}
+
+	/**
+	 * Get a registered category by its name
+	 *
+	 * @param name
+	 * @return the category, or null if not registered
+	 */
+	public static synchronized CompMaterialCategory getByName(String name) {
+		return byName.get(name);
+	}
+
+	/**
+	 * Get all registered categories
+	 *
+	 * @return
+	 */
+	public static synchronized Collection<CompMaterialCategory> getCategories() {
+		return Collections.unmodifiableList(new ArrayList<>(byName.values()));
+	}
+
+	/**
+	 * Get the bit mask of all categories the material belongs to
+	 *
+	 * @param mat
+	 * @return
+	 */
+	public static long getMask(Material mat) {
+		return masks[mat.ordinal()];
+	}
+
+	// Utility method for evaluating matches.
+	private static boolean nameContains(Material mat, String... names) {
+		final String matName = mat.name();
+
+		for (final String name : names)
+			if (matName.contains(name))
+				return true;
+
+		return false;
+	}
+
+	private static boolean nameEquals(Material mat, String... names) {
+		final String matName = mat.name();
+
+		for (final String name : names)
+			if (matName.equals(name))
+				return true;
+
+		return false;
+	}
+}
@@ -0,0 +1,565 @@
+package org.mineacademy.remain.nbt;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads and writes the binary named tag format used by Minecraft
+ * into {@link TagCompound} and {@link TagList} without touching the server,
+ * so it is safe to use from any thread and outside of a running server
+ */
+public final class NBTCodec {
+
+	public static final byte TAG_END = 0;
+	public static final byte TAG_BYTE = 1;
+	public static final byte TAG_SHORT = 2;
+	public static final byte TAG_INT = 3;
+	public static final byte TAG_LONG = 4;
+	public static final byte TAG_FLOAT = 5;
+	public static final byte TAG_DOUBLE = 6;
+	public static final byte TAG_BYTE_ARRAY = 7;
+	public static final byte TAG_STRING = 8;
+	public static final byte TAG_LIST = 9;
+	public static final byte TAG_COMPOUND = 10;
+	public static final byte TAG_INT_ARRAY = 11;
+	public static final byte TAG_LONG_ARRAY = 12;
+
+	/**
+	 * The deepest nesting we read, the same limit as Minecraft uses
+	 */
+	private static final int MAX_DEPTH = 512;
+
+	/**
+	 * How many elements of an array are allocated at once, larger arrays grow as their data is read
+	 */
+	private static final int ARRAY_CHUNK = 4096;
+
+	/**
+	 * The most elements an array or list may have, see {@link #setMaxLength(int)}
+	 */
+	private static volatile int maxLength = 16 * 1024 * 1024;
+
+	/**
+	 * How the tag data is compressed
+	 */
+	public enum Compression {
+
+		/**
+		 * Raw tag data, used in network packets and region chunks after decompression
+		 */
+		NONE,
+
+		/**
+		 * Gzip framing, used in level.dat and playerdata files
+		 */
+		GZIP,
+
+		/**
+		 * Zlib framing, used in region file chunks
+		 */
+		ZLIB
+	}
+
+	// Static access
+	private NBTCodec() {
+	}
+
+	/**
+	 * Set the most elements an array or list may have, longer ones are rejected
+	 * as corrupted. Defaults to 16 777 216.
+	 *
+	 * @param maxLength
+	 */
+	public static void setMaxLength(int maxLength) {
+		if (maxLength < 0)
+			throw new IllegalArgumentException("Max length cannot be negative: " + maxLength);
+
+		NBTCodec.maxLength = maxLength;
+	}
+
+	/**
+	 * Get the most elements an array or list may have
+	 *
+	 * @return
+	 */
+	public static int getMaxLength() {
+		return maxLength;
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Reading
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Read a compound from the stream, detecting its compression from the first bytes
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static TagCompound read(InputStream in) throws IOException {
+		final InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+
+		return read(buffered, detectCompression(buffered));
+	}
+
+	/**
+	 * Read a compound from the byte array, detecting its compression
+	 *
+	 * @param data
+	 * @return
+	 * @throws IOException
+	 */
+	public static TagCompound read(byte[] data) throws IOException {
+		return read(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * Read a compound from the stream with the given compression. The name of the root tag is ignored.
+	 *
+	 * @param in
+	 * @param compression
+	 * @return
+	 * @throws IOException
+	 */
+	public static TagCompound read(InputStream in, Compression compression) throws IOException {
+		return readRoot(new DataInputStream(decompress(in, compression)));
+	}
+
+	/**
+	 * Read the root compound from the data input
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static TagCompound readRoot(DataInput in) throws IOException {
+		return readRoot(TagInput.of(in));
+	}
+
+	// Reads the root compound, skipping its name
+	static TagCompound readRoot(TagInput in) throws IOException {
+		final byte type = in.readByte();
+
+		if (type != TAG_COMPOUND)
+			throw new IOException("Root tag must be a compound, got type " + type);
+
+		in.readUTF();
+
+		return readCompound(in, 0);
+	}
+
+	// Looks at the first bytes of the stream and resets it back
+	static Compression detectCompression(InputStream in) throws IOException {
+		in.mark(2);
+
+		final int first = in.read();
+		final int second = in.read();
+
+		in.reset();
+
+		if (first == 0x1F && second == 0x8B)
+			return Compression.GZIP;
+
+		if (first == 0x78 && (first << 8 | second) % 31 == 0)
+			return Compression.ZLIB;
+
+		return Compression.NONE;
+	}
+
+	// Wraps the stream to strip the given compression
+	static InputStream decompress(InputStream in, Compression compression) throws IOException {
+		switch (compression) {
+			case GZIP:
+				return new BufferedInputStream(new GZIPInputStream(in));
+
+			case ZLIB:
+				return new BufferedInputStream(new InflaterInputStream(in));
+
+			default:
+				return in;
+		}
+	}
+
+	// Reads the payload of a compound, the type and name having been read already
+	static TagCompound readCompound(TagInput in, int depth) throws IOException {
+		checkDepth(depth);
+
+		final TagCompound compound = new TagCompound();
+
+		byte type;
+
+		while ((type = in.readByte()) != TAG_END) {
+			final String key = in.readUTF();
+
+			compound.put(key, readPayload(in, type, depth + 1));
+		}
+
+		return compound;
+	}
+
+	// Reads the payload of a tag of the given type
+	static Object readPayload(TagInput in, byte type, int depth) throws IOException {
+		switch (type) {
+			case TAG_BYTE:
+				return in.readByte();
+
+			case TAG_SHORT:
+				return in.readShort();
+
+			case TAG_INT:
+				return in.readInt();
+
+			case TAG_LONG:
+				return in.readLong();
+
+			case TAG_FLOAT:
+				return in.readFloat();
+
+			case TAG_DOUBLE:
+				return in.readDouble();
+
+			case TAG_BYTE_ARRAY:
+				return readByteArray(in, readLength(in));
+
+			case TAG_STRING:
+				return in.readUTF();
+
+			case TAG_LIST:
+				return readList(in, in.readByte(), readLength(in), depth);
+
+			case TAG_COMPOUND:
+				return readCompound(in, depth);
+
+			case TAG_INT_ARRAY:
+				return readIntArray(in, readLength(in));
+
+			case TAG_LONG_ARRAY:
+				return readLongArray(in, readLength(in));
+
+			default:
+				throw new IOException("Unknown tag type " + type);
+		}
+	}
+
+	// Reads the elements of a list, its element type and length having been read already
+	static TagList readList(TagInput in, byte elementType, int length, int depth) throws IOException {
+		checkDepth(depth);
+
+		if (elementType == TAG_END && length > 0)
+			throw new IOException("Missing element type of a non-empty list");
+
+		final TagList list = new TagList(elementType, Math.min(length, 1024));
+
+		for (int i = 0; i < length; i++)
+			list.add(readPayload(in, elementType, depth + 1));
+
+		return list;
+	}
+
+	// Reads a length prefix and rejects negative or too large values from corrupted data
+	static int readLength(TagInput in) throws IOException {
+		final int length = in.readInt();
+
+		if (length < 0)
+			throw new IOException("Negative length " + length);
+
+		if (length > maxLength)
+			throw new IOException("Length " + length + " exceeds the limit of " + maxLength);
+
+		return length;
+	}
+
+	// The arrays below grow in chunks as data arrives, so a made up length
+	// cannot allocate more memory than the input actually holds
+
+	private static byte[] readByteArray(TagInput in, int length) throws IOException {
+		byte[] array = new byte[Math.min(length, ARRAY_CHUNK)];
+
+		for (int read = 0; read < length;) {
+			if (read == array.length)
+				array = Arrays.copyOf(array, grow(array.length, length));
+
+			in.readFully(array, read, array.length - read);
+			read = array.length;
+		}
+
+		return array;
+	}
+
+	private static int[] readIntArray(TagInput in, int length) throws IOException {
+		int[] array = new int[Math.min(length, ARRAY_CHUNK)];
+
+		for (int i = 0; i < length; i++) {
+			if (i == array.length)
+				array = Arrays.copyOf(array, grow(array.length, length));
+
+			array[i] = in.readInt();
+		}
+
+		return array;
+	}
+
+	private static long[] readLongArray(TagInput in, int length) throws IOException {
+		long[] array = new long[Math.min(length, ARRAY_CHUNK)];
+
+		for (int i = 0; i < length; i++) {
+			if (i == array.length)
+				array = Arrays.copyOf(array, grow(array.length, length));
+
+			array[i] = in.readLong();
+		}
+
+		return array;
+	}
+
+	// Doubles the capacity without going past the final length
+	private static int grow(int capacity, int length) {
+		return (int) Math.min((long) capacity * 2, length);
+	}
+
+	// Prevents stack overflows on corrupted or malicious data
+	static void checkDepth(int depth) throws IOException {
+		if (depth > MAX_DEPTH)
+			throw new IOException("Tag is nested deeper than " + MAX_DEPTH);
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Writing
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Write the compound as an unnamed root tag with the given compression
+	 *
+	 * @param compound
+	 * @param out
+	 * @param compression
+	 * @throws IOException
+	 */
+	public static void write(TagCompound compound, OutputStream out, Compression compression) throws IOException {
+		write("", compound, out, compression);
+	}
+
+	/**
+	 * Write the compound as a named root tag with the given compression.
+	 * The stream is finished but not closed.
+	 *
+	 * @param name
+	 * @param compound
+	 * @param out
+	 * @param compression
+	 * @throws IOException
+	 */
+	public static void write(String name, TagCompound compound, OutputStream out, Compression compression) throws IOException {
+		switch (compression) {
+			case GZIP: {
+				final GZIPOutputStream gzip = new GZIPOutputStream(out);
+
+				writeRoot(name, compound, new DataOutputStream(gzip));
+				gzip.finish();
+				break;
+			}
+
+			case ZLIB: {
+				final DeflaterOutputStream zlib = new DeflaterOutputStream(out);
+
+				writeRoot(name, compound, new DataOutputStream(zlib));
+				zlib.finish();
+				break;
+			}
+
+			default:
+				writeRoot(name, compound, new DataOutputStream(out));
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Write the compound to a new byte array
+	 *
+	 * @param compound
+	 * @param compression
+	 * @return
+	 */
+	public static byte[] toByteArray(TagCompound compound, Compression compression) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try {
+			write(compound, out, compression);
+
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Writing to memory failed", ex);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write the compound as a named root tag to the data output
+	 *
+	 * @param name
+	 * @param compound
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void writeRoot(String name, TagCompound compound, DataOutput out) throws IOException {
+		out.writeByte(TAG_COMPOUND);
+		out.writeUTF(name);
+
+		writeCompound(compound, out);
+	}
+
+	// Writes the payload of a compound including its end tag
+	private static void writeCompound(TagCompound compound, DataOutput out) throws IOException {
+		for (final String key : compound.getKeys()) {
+			final Object value = compound.get(key);
+
+			out.writeByte(getTypeId(value));
+			out.writeUTF(key);
+
+			writePayload(value, out);
+		}
+
+		out.writeByte(TAG_END);
+	}
+
+	// Writes the payload of any supported value
+	private static void writePayload(Object value, DataOutput out) throws IOException {
+		switch (getTypeId(value)) {
+			case TAG_BYTE:
+				out.writeByte((Byte) value);
+				break;
+
+			case TAG_SHORT:
+				out.writeShort((Short) value);
+				break;
+
+			case TAG_INT:
+				out.writeInt((Integer) value);
+				break;
+
+			case TAG_LONG:
+				out.writeLong((Long) value);
+				break;
+
+			case TAG_FLOAT:
+				out.writeFloat((Float) value);
+				break;
+
+			case TAG_DOUBLE:
+				out.writeDouble((Double) value);
+				break;
+
+			case TAG_BYTE_ARRAY: {
+				final byte[] array = (byte[]) value;
+
+				out.writeInt(array.length);
+				out.write(array);
+				break;
+			}
+
+			case TAG_STRING:
+				out.writeUTF((String) value);
+				break;
+
+			case TAG_LIST: {
+				final TagList list = (TagList) value;
+
+				out.writeByte(list.size() == 0 ? TAG_END : list.getElementType());
+				out.writeInt(list.size());
+
+				for (final Object element : list.getElements())
+					writePayload(element, out);
+
+				break;
+			}
+
+			case TAG_COMPOUND:
+				writeCompound((TagCompound) value, out);
+				break;
+
+			case TAG_INT_ARRAY: {
+				final int[] array = (int[]) value;
+
+				out.writeInt(array.length);
+
+				for (final int element : array)
+					out.writeInt(element);
+
+				break;
+			}
+
+			case TAG_LONG_ARRAY: {
+				final long[] array = (long[]) value;
+
+				out.writeInt(array.length);
+
+				for (final long element : array)
+					out.writeLong(element);
+
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Get the tag type id for the given value
+	 *
+	 * @param value
+	 * @return
+	 * @throws IllegalArgumentException if the value cannot be stored in a tag
+	 */
+	public static byte getTypeId(Object value) {
+		if (value instanceof Byte)
+			return TAG_BYTE;
+
+		if (value instanceof Short)
+			return TAG_SHORT;
+
+		if (value instanceof Integer)
+			return TAG_INT;
+
+		if (value instanceof Long)
+			return TAG_LONG;
+
+		if (value instanceof Float)
+			return TAG_FLOAT;
+
+		if (value instanceof Double)
+			return TAG_DOUBLE;
+
+		if (value instanceof byte[])
+			return TAG_BYTE_ARRAY;
+
+		if (value instanceof String)
+			return TAG_STRING;
+
+		if (value instanceof TagList)
+			return TAG_LIST;
+
+		if (value instanceof TagCompound)
+			return TAG_COMPOUND;
+
+		if (value instanceof int[])
+			return TAG_INT_ARRAY;
+
+		if (value instanceof long[])
+			return TAG_LONG_ARRAY;
+
+		throw new IllegalArgumentException("Cannot store " + (value == null ? "null" : value.getClass().getSimpleName()) + " in a tag");
+	}
+}
@@ -1,27 +1,70 @@
 package org.mineacademy.remain.nbt;
 
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.bukkit.inventory.ItemStack;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 /**
  * Represents a NBT Compound tag
  */
-@Getter
 public class NBTCompound {
 
 	/**
 	 * The compound tag name
 	 */
+	@Getter
 	private final String name;
 
 	/**
 	 * The parent tag
 	 */
+	@Getter
 	private final NBTCompound parent;
 
+	/**
+	 * The top-most compound in this tree, holding the structure version
+	 */
+	private final NBTCompound root;
+
+	/**
+	 * Increased each time a compound may have been added, replaced or removed
+	 * anywhere in this tree. Only updated on the root.
+	 */
+	private int structureVersion;
+
+	/**
+	 * The root tag {@link #resolvedTag} was resolved from
+	 */
+	private Object resolvedRoot;
+
+	/**
+	 * The structure version {@link #resolvedTag} was resolved at
+	 */
+	private int resolvedVersion;
+
+	/**
+	 * The NMS tag of this compound inside {@link #resolvedRoot}
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private Object resolvedTag;
+
+	/**
+	 * The keys compounds of this tree were resolved under, by the NMS tag holding them.
+	 * Only used on the root, null until a compound is resolved.
+	 */
+	private Map<Object, Set<String>> resolvedKeys;
+
+	/**
+	 * The root tag {@link #resolvedKeys} belong to
+	 */
+	private Object resolvedKeysRoot;
+
 	/**
 	 * Create a new NBT compound tag
 	 * @param owner
@@ -30,6 +73,72 @@ public class NBTCompound {
 	protected NBTCompound(NBTCompound owner, String name) {
 		this.name = name;
 		this.parent = owner;
+		this.root = owner == null ? this : owner.root;
+	}
+
+	/**
+	 * Return true if the cached tag was resolved from the given root tag
+	 * and no compound has been added or removed since
+	 *
+	 * @param rootTag
+	 * @return
+	 */
+	final boolean isResolvedFrom(Object rootTag) {
+		return resolvedRoot == rootTag && resolvedVersion == root.structureVersion;
+	}
+
+	/**
+	 * Cache the NMS tag of this compound found under its name in the parent tag inside the given root tag
+	 *
+	 * @param rootTag
+	 * @param parentTag
+	 * @param tag
+	 */
+	final void setResolved(Object rootTag, Object parentTag, Object tag) {
+		resolvedRoot = rootTag;
+		resolvedTag = tag;
+		resolvedVersion = root.structureVersion;
+
+		if (tag != null)
+			root.addResolvedKey(rootTag, parentTag, name);
+	}
+
+	// Remembers the key a compound was resolved under, forgetting keys of an older root tag
+	private void addResolvedKey(Object rootTag, Object parentTag, String key) {
+		if (resolvedKeys == null)
+			resolvedKeys = new IdentityHashMap<>();
+
+		else if (resolvedKeysRoot != rootTag)
+			resolvedKeys.clear();
+
+		resolvedKeysRoot = rootTag;
+		resolvedKeys.computeIfAbsent(parentTag, tag -> new HashSet<>()).add(key);
+	}
+
+	/**
+	 * Return true if a compound of this tree was resolved under the key of the given NMS tag,
+	 * so setting a value there detaches the tag it cached
+	 *
+	 * @param parentTag
+	 * @param key
+	 * @return
+	 */
+	final boolean isResolvedKey(Object parentTag, String key) {
+		final Set<String> keys = root.resolvedKeys != null ? root.resolvedKeys.get(parentTag) : null;
+
+		return keys != null && keys.contains(key);
+	}
+
+	/**
+	 * Invalidate resolved tags of all compounds in this tree. Called when a key is
+	 * removed or replaced with a raw tag, and when a primitive value is set over
+	 * a resolved compound. Setting primitive values over other values does not change the structure.
+	 */
+	final void changeStructure() {
+		root.structureVersion++;
+
+		if (root.resolvedKeys != null)
+			root.resolvedKeys.clear();
 	}
 
 	/**
@@ -54,6 +163,44 @@ public class NBTCompound {
 		parent.setItem(item);
 	}
 
+	/**
+	 * Start buffering writes in this tree against one tag, so the owner is only
+	 * updated once when the session is committed. Closing a session that was not
+	 * committed discards the buffered writes, so use it like this:
+	 *
+	 * <pre>
+	 * try (NBTCompound.EditSession session = nbt.beginEdit()) {
+	 *     nbt.setString("Key", "Value");
+	 *
+	 *     session.commit();
+	 * }
+	 * </pre>
+	 *
+	 * Only items buffer writes, on entities and tile entities writes go through
+	 * directly and the session does nothing.
+	 *
+	 * @return the session
+	 */
+	public EditSession beginEdit() {
+		return parent != null ? parent.beginEdit() : new EditSession(this);
+	}
+
+	/**
+	 * Write all changes buffered since {@link #beginEdit()} to the owner at once
+	 */
+	public void commitEdit() {
+		if (parent != null)
+			parent.commitEdit();
+	}
+
+	/**
+	 * Discard all changes buffered since {@link #beginEdit()}, writes go through directly again
+	 */
+	public void abortEdit() {
+		if (parent != null)
+			parent.abortEdit();
+	}
+
 	public void setString(String key, String value) {
 		NBTReflectionUtil.setString(this, key, value);
 	}
@@ -162,6 +309,24 @@ public class NBTCompound {
 		return NBTReflectionUtil.getKeys(this);
 	}
 
+	/**
+	 * Copy this compound into a tag model that does not depend on the server
+	 *
+	 * @return the copy, empty if this compound has no keys or does not exist yet, or null if it could not be read
+	 */
+	public TagCompound toTag() {
+		return NBTReflectionUtil.toTag(this);
+	}
+
+	/**
+	 * Copy all keys of the given tag model into this compound, replacing existing ones
+	 *
+	 * @param tag
+	 */
+	public void mergeTag(TagCompound tag) {
+		NBTReflectionUtil.mergeTag(this, tag);
+	}
+
 	public NBTCompound addCompound(String name) {
 		NBTReflectionUtil.addNBTTagCompound(this, name);
 		return getCompound(name);
@@ -205,4 +370,46 @@ public class NBTCompound {
 		return s + "-" + key + ": " + get(key) + System.lineSeparator();
 	}
 
+	/**
+	 * Represents buffered writes started with {@link NBTCompound#beginEdit()}
+	 */
+	public static final class EditSession implements AutoCloseable {
+
+		/**
+		 * The top-most compound the session was started on
+		 */
+		private final NBTCompound root;
+
+		/**
+		 * Whether the session was committed or closed already
+		 */
+		private boolean done;
+
+		EditSession(NBTCompound root) {
+			this.root = root;
+		}
+
+		/**
+		 * Write the buffered changes to the owner and end the session
+		 */
+		public void commit() {
+			if (!done) {
+				done = true;
+
+				root.commitEdit();
+			}
+		}
+
+		/**
+		 * Discard the buffered changes unless the session was committed
+		 */
+		@Override
+		public void close() {
+			if (!done) {
+				done = true;
+
+				root.abortEdit();
+			}
+		}
+	}
 }
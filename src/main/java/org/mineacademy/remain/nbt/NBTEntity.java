@@ -4,6 +4,9 @@ import org.bukkit.entity.Entity;
 
 /**
  * Represents an entity NBT tag
+ *
+ * The tag is copied from the entity on every access, so compounds inside it are
+ * looked up from the top each time instead of reusing their cached tag.
  */
 public class NBTEntity extends NBTCompound {
 
@@ -4,20 +4,40 @@ import org.bukkit.inventory.ItemStack;
 
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.Setter;
 
 /**
  * Represents an item's NBT tag
  */
-@Setter
-@Getter
 public class NBTItem extends NBTCompound {
 
 	/**
 	 * The associated item stack
 	 */
+	@Getter
 	private ItemStack item;
 
+	/**
+	 * The root tag of the item, read once and reused until the item changes,
+	 * so nested compounds can keep their resolved tags
+	 */
+	private Object rootSnapshot;
+
+	/**
+	 * Whether {@link #rootSnapshot} was read, since the root tag may be null
+	 */
+	private boolean snapshotTaken;
+
+	/**
+	 * Whether writes are kept in {@link #rootSnapshot} instead of being written to the item
+	 */
+	@Getter
+	private boolean editing;
+
+	/**
+	 * Whether the snapshot was changed during the current edit session
+	 */
+	private boolean edited;
+
 	/**
 	 * Access an items's NBT tag
 	 */
@@ -26,13 +46,84 @@ public class NBTItem extends NBTCompound {
 		this.item = item.clone();
 	}
 
+	/**
+	 * Set the item stack, discarding the cached root tag and any uncommitted edits
+	 *
+	 * @param item
+	 */
+	@Override
+	public void setItem(ItemStack item) {
+		this.item = item;
+		this.edited = false;
+
+		invalidateSnapshot();
+	}
+
+	/**
+	 * Start buffering writes against one tag. The item returned by {@link #getItem()}
+	 * is only updated when the session is committed.
+	 */
+	@Override
+	public EditSession beginEdit() {
+		editing = true;
+
+		return new EditSession(this);
+	}
+
+	/**
+	 * Convert the edited tag back to the item stack once and end the edit session
+	 */
+	@Override
+	public void commitEdit() {
+		editing = false;
+
+		if (edited) {
+			edited = false;
+
+			setCompound(rootSnapshot);
+		}
+	}
+
+	/**
+	 * Discard the edited tag and end the edit session, the item is left unchanged
+	 */
+	@Override
+	public void abortEdit() {
+		editing = false;
+		edited = false;
+
+		// The snapshot holds the discarded writes, read the tag from the item again
+		invalidateSnapshot();
+	}
+
 	@Override
 	protected Object getCompound() {
-		return NBTReflectionUtil.getItemRootNBTTagCompound(NBTReflectionUtil.getNMSItemStack(item));
+		if (!snapshotTaken) {
+			rootSnapshot = NBTReflectionUtil.getItemRootNBTTagCompound(NBTReflectionUtil.getNMSItemStack(item));
+			snapshotTaken = true;
+		}
+
+		return rootSnapshot;
 	}
 
 	@Override
 	protected void setCompound(Object tag) {
+		if (editing) {
+			rootSnapshot = tag;
+			snapshotTaken = true;
+			edited = true;
+
+			return;
+		}
+
 		item = NBTReflectionUtil.getBukkitItemStack(NBTReflectionUtil.setNBTTag(tag, NBTReflectionUtil.getNMSItemStack(item)));
+
+		invalidateSnapshot();
+	}
+
+	// Forces the root tag to be copied from the item again on next access
+	private void invalidateSnapshot() {
+		rootSnapshot = null;
+		snapshotTaken = false;
 	}
 }
@@ -1,7 +1,6 @@
 package org.mineacademy.remain.nbt;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.List;
 
 import org.mineacademy.remain.util.MinecraftVersion;
@@ -38,11 +37,10 @@ public class NBTList {
 			return null;
 		}
 		try {
-			final Method m = listobject.getClass().getMethod("add", NBTReflectionUtil.getNBTBase());
-			final Object comp = NBTReflectionUtil.getNBTTagCompound().newInstance();
-			m.invoke(listobject, comp);
+			final Object comp = NBTReflectionUtil.getNewNBTTag();
+			NBTMethods.LIST_ADD.invokeExact(listobject, comp);
 			return new NBTListCompound(this, comp);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -54,10 +52,9 @@ public class NBTList {
 			return null;
 		}
 		try {
-			final Method m = listobject.getClass().getMethod("get", int.class);
-			final Object comp = m.invoke(listobject, id);
+			final Object comp = NBTMethods.LIST_GET.invokeExact(listobject, id);
 			return new NBTListCompound(this, comp);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -69,9 +66,8 @@ public class NBTList {
 			return null;
 		}
 		try {
-			final Method m = listobject.getClass().getMethod("getString", int.class);
-			return (String) m.invoke(listobject, i);
-		} catch (final Exception ex) {
+			return (String) NBTMethods.LIST_GET_STRING.invokeExact(listobject, i);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -83,10 +79,9 @@ public class NBTList {
 			return;
 		}
 		try {
-			final Method m = listobject.getClass().getMethod("add", NBTReflectionUtil.getNBTBase());
-			m.invoke(listobject, NBTReflectionUtil.getNBTTagString().getConstructor(String.class).newInstance(s));
+			NBTMethods.LIST_ADD.invokeExact(listobject, newString(s));
 			save();
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -98,22 +93,23 @@ public class NBTList {
 		}
 
 		try {
-			if (MinecraftVersion.olderThan(V.v1_8)) {
-				getList().set(i, NBTReflectionUtil.getNBTTagString().getConstructor(String.class).newInstance(s));
-
-			} else {
-				final Method m = listobject.getClass().getMethod("a", int.class, NBTReflectionUtil.getNBTBase());
+			if (MinecraftVersion.olderThan(V.v1_8))
+				getList().set(i, newString(s));
 
-				m.invoke(listobject, i, NBTReflectionUtil.getNBTTagString().getConstructor(String.class).newInstance(s));
-			}
+			else
+				NBTMethods.LIST_SET.invokeExact(listobject, i, newString(s));
 
 			save();
 
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
 
+	private Object newString(String s) throws Throwable {
+		return NBTMethods.NEW_STRING.invokeExact(s);
+	}
+
 	private List getList() throws ReflectiveOperationException {
 		final Field l = listobject.getClass().getDeclaredField("list");
 		l.setAccessible(true);
@@ -126,22 +122,19 @@ public class NBTList {
 			if (MinecraftVersion.olderThan(V.v1_8)) {
 				getList().remove(i);
 
-			} else {
-				final Method m = listobject.getClass().getMethod(NBTReflectionUtil.getRemoveMethodName(), int.class);
-				m.invoke(listobject, i);
-			}
+			} else
+				NBTMethods.LIST_REMOVE.invokeExact(listobject, i);
 
 			save();
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
 
 	public int size() {
 		try {
-			final Method m = listobject.getClass().getMethod("size");
-			return (int) m.invoke(listobject);
-		} catch (final Exception ex) {
+			return (int) NBTMethods.LIST_SIZE.invokeExact(listobject);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return -1;
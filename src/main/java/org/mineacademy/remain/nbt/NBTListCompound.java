@@ -3,9 +3,6 @@ package org.mineacademy.remain.nbt;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.mineacademy.remain.util.MinecraftVersion;
-import org.mineacademy.remain.util.MinecraftVersion.V;
-
 /**
  * Represents a list compounnd NBT tag
  */
@@ -25,26 +22,26 @@ public class NBTListCompound {
 			return;
 		}
 		try {
-			compound.getClass().getMethod("setString", String.class, String.class).invoke(compound, key, val);
+			NBTMethods.SET_STRING.invokeExact(compound, key, val);
 			owner.save();
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
 
 	public void setInteger(String key, int val) {
 		try {
-			compound.getClass().getMethod("setInt", String.class, int.class).invoke(compound, key, val);
+			NBTMethods.SET_INT.invokeExact(compound, key, val);
 			owner.save();
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
 
 	public int getInteger(String key) {
 		try {
-			return (int) compound.getClass().getMethod("getInt", String.class).invoke(compound, key);
-		} catch (final Exception ex) {
+			return (int) NBTMethods.GET_INT.invokeExact(compound, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return 0;
@@ -52,17 +49,17 @@ public class NBTListCompound {
 
 	public void setDouble(String key, double val) {
 		try {
-			compound.getClass().getMethod("setDouble", String.class, double.class).invoke(compound, key, val);
+			NBTMethods.SET_DOUBLE.invokeExact(compound, key, val);
 			owner.save();
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
 
 	public double getDouble(String key) {
 		try {
-			return (double) compound.getClass().getMethod("getDouble", String.class).invoke(compound, key);
-		} catch (final Exception ex) {
+			return (double) NBTMethods.GET_DOUBLE.invokeExact(compound, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return 0;
@@ -70,8 +67,8 @@ public class NBTListCompound {
 
 	public String getString(String key) {
 		try {
-			return (String) compound.getClass().getMethod("getString", String.class).invoke(compound, key);
-		} catch (final Exception ex) {
+			return (String) NBTMethods.GET_STRING.invokeExact(compound, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return "";
@@ -79,18 +76,17 @@ public class NBTListCompound {
 
 	public boolean hasKey(String key) {
 		try {
-			return (boolean) compound.getClass().getMethod("hasKey", String.class).invoke(compound, key);
-		} catch (final Exception ex) {
+			return (boolean) NBTMethods.HAS_KEY.invokeExact(compound, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return false;
 	}
 
-	
 	public Set<String> getKeys() {
 		try {
-			return (Set<String>) compound.getClass().getMethod(MinecraftVersion.atLeast(V.v1_13) ? "getKeys" : "c").invoke(compound);
-		} catch (final Exception ex) {
+			return (Set<String>) NBTMethods.GET_KEYS.invokeExact(compound);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return new HashSet<>();
@@ -98,8 +94,8 @@ public class NBTListCompound {
 
 	public void remove(String key) {
 		try {
-			compound.getClass().getMethod("remove", String.class).invoke(compound, key);
-		} catch (final Exception ex) {
+			NBTMethods.REMOVE.invokeExact(compound, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
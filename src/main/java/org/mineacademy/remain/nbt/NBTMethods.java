@@ -0,0 +1,208 @@
+package org.mineacademy.remain.nbt;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Set;
+
+import org.bukkit.inventory.ItemStack;
+import org.mineacademy.remain.util.MinecraftVersion;
+import org.mineacademy.remain.util.MinecraftVersion.V;
+import org.mineacademy.remain.util.ReflectionUtil;
+
+/**
+ * Holds method handles for all NBT tag operations on the running server version
+ *
+ * The table is built once when this class is loaded, which happens at startup
+ * when the NBT library is tested for compatibility. Receivers are typed as Object
+ * while values keep their primitive types, so calls do not box or allocate arrays.
+ */
+final class NBTMethods {
+
+	/**
+	 * The lookup used to convert methods to handles
+	 */
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	// ------------------------------------------------------------------------------------------
+	// NBTTagCompound
+	// ------------------------------------------------------------------------------------------
+
+	static final MethodHandle NEW_COMPOUND;
+
+	static final MethodHandle GET;
+	static final MethodHandle SET;
+
+	static final MethodHandle GET_STRING;
+	static final MethodHandle SET_STRING;
+
+	static final MethodHandle GET_INT;
+	static final MethodHandle SET_INT;
+
+	static final MethodHandle GET_BYTE_ARRAY;
+	static final MethodHandle SET_BYTE_ARRAY;
+
+	static final MethodHandle GET_INT_ARRAY;
+	static final MethodHandle SET_INT_ARRAY;
+
+	static final MethodHandle GET_FLOAT;
+	static final MethodHandle SET_FLOAT;
+
+	static final MethodHandle GET_LONG;
+	static final MethodHandle SET_LONG;
+
+	static final MethodHandle GET_SHORT;
+	static final MethodHandle SET_SHORT;
+
+	static final MethodHandle GET_BYTE;
+	static final MethodHandle SET_BYTE;
+
+	static final MethodHandle GET_DOUBLE;
+	static final MethodHandle SET_DOUBLE;
+
+	static final MethodHandle GET_BOOLEAN;
+	static final MethodHandle SET_BOOLEAN;
+
+	static final MethodHandle GET_COMPOUND;
+	static final MethodHandle GET_LIST;
+	static final MethodHandle GET_TYPE;
+	static final MethodHandle GET_KEYS;
+	static final MethodHandle HAS_KEY;
+	static final MethodHandle REMOVE;
+
+	// ------------------------------------------------------------------------------------------
+	// NBTTagList and NBTTagString
+	// ------------------------------------------------------------------------------------------
+
+	static final MethodHandle NEW_STRING;
+
+	static final MethodHandle LIST_ADD;
+	static final MethodHandle LIST_GET;
+	static final MethodHandle LIST_GET_STRING;
+	static final MethodHandle LIST_SET;
+	static final MethodHandle LIST_REMOVE;
+	static final MethodHandle LIST_SIZE;
+
+	// ------------------------------------------------------------------------------------------
+	// Item stacks
+	// ------------------------------------------------------------------------------------------
+
+	static final MethodHandle AS_NMS_COPY;
+	static final MethodHandle AS_CRAFT_MIRROR;
+	static final MethodHandle GET_TAG;
+	static final MethodHandle SET_TAG;
+
+	// ------------------------------------------------------------------------------------------
+	// Binary format
+	// ------------------------------------------------------------------------------------------
+
+	static final MethodHandle WRITE_BINARY;
+	static final MethodHandle READ_BINARY;
+
+	// Static access
+	private NBTMethods() {
+	}
+
+	static {
+		final Class<?> base = NBTReflectionUtil.getNBTBase();
+		final Class<?> compound = NBTReflectionUtil.getNBTTagCompound();
+		final Class<?> list = ReflectionUtil.getNMSClass("NBTTagList");
+		final Class<?> nmsItem = ReflectionUtil.getNMSClass("ItemStack");
+		final Class<?> craftItem = ReflectionUtil.getOFCClass("inventory.CraftItemStack");
+
+		NEW_COMPOUND = findConstructor(compound, methodType(Object.class));
+
+		GET = find(compound, "get", methodType(Object.class, Object.class, String.class), String.class);
+		SET = find(compound, "set", methodType(void.class, Object.class, String.class, Object.class), String.class, base);
+
+		GET_STRING = find(compound, "getString", methodType(String.class, Object.class, String.class), String.class);
+		SET_STRING = find(compound, "setString", methodType(void.class, Object.class, String.class, String.class), String.class, String.class);
+
+		GET_INT = find(compound, "getInt", methodType(int.class, Object.class, String.class), String.class);
+		SET_INT = find(compound, "setInt", methodType(void.class, Object.class, String.class, int.class), String.class, int.class);
+
+		GET_BYTE_ARRAY = find(compound, "getByteArray", methodType(byte[].class, Object.class, String.class), String.class);
+		SET_BYTE_ARRAY = find(compound, "setByteArray", methodType(void.class, Object.class, String.class, byte[].class), String.class, byte[].class);
+
+		GET_INT_ARRAY = find(compound, "getIntArray", methodType(int[].class, Object.class, String.class), String.class);
+		SET_INT_ARRAY = find(compound, "setIntArray", methodType(void.class, Object.class, String.class, int[].class), String.class, int[].class);
+
+		GET_FLOAT = find(compound, "getFloat", methodType(float.class, Object.class, String.class), String.class);
+		SET_FLOAT = find(compound, "setFloat", methodType(void.class, Object.class, String.class, float.class), String.class, float.class);
+
+		GET_LONG = find(compound, "getLong", methodType(long.class, Object.class, String.class), String.class);
+		SET_LONG = find(compound, "setLong", methodType(void.class, Object.class, String.class, long.class), String.class, long.class);
+
+		GET_SHORT = find(compound, "getShort", methodType(short.class, Object.class, String.class), String.class);
+		SET_SHORT = find(compound, "setShort", methodType(void.class, Object.class, String.class, short.class), String.class, short.class);
+
+		GET_BYTE = find(compound, "getByte", methodType(byte.class, Object.class, String.class), String.class);
+		SET_BYTE = find(compound, "setByte", methodType(void.class, Object.class, String.class, byte.class), String.class, byte.class);
+
+		GET_DOUBLE = find(compound, "getDouble", methodType(double.class, Object.class, String.class), String.class);
+		SET_DOUBLE = find(compound, "setDouble", methodType(void.class, Object.class, String.class, double.class), String.class, double.class);
+
+		GET_BOOLEAN = find(compound, "getBoolean", methodType(boolean.class, Object.class, String.class), String.class);
+		SET_BOOLEAN = find(compound, "setBoolean", methodType(void.class, Object.class, String.class, boolean.class), String.class, boolean.class);
+
+		GET_COMPOUND = find(compound, "getCompound", methodType(Object.class, Object.class, String.class), String.class);
+		GET_LIST = find(compound, "getList", methodType(Object.class, Object.class, String.class, int.class), String.class, int.class);
+		GET_TYPE = find(compound, NBTReflectionUtil.getTypeMethodName(), methodType(byte.class, Object.class, String.class), String.class);
+		GET_KEYS = find(compound, MinecraftVersion.atLeast(V.v1_13) ? "getKeys" : "c", methodType(Set.class, Object.class));
+		HAS_KEY = find(compound, "hasKey", methodType(boolean.class, Object.class, String.class), String.class);
+		REMOVE = find(compound, "remove", methodType(void.class, Object.class, String.class), String.class);
+
+		NEW_STRING = findConstructor(NBTReflectionUtil.getNBTTagString(), methodType(Object.class, String.class), String.class);
+
+		LIST_ADD = find(list, "add", methodType(void.class, Object.class, Object.class), base);
+		LIST_GET = find(list, "get", methodType(Object.class, Object.class, int.class), int.class);
+		LIST_GET_STRING = find(list, "getString", methodType(String.class, Object.class, int.class), int.class);
+		LIST_SET = MinecraftVersion.olderThan(V.v1_8) ? null : find(list, "a", methodType(void.class, Object.class, int.class, Object.class), int.class, base);
+		LIST_REMOVE = MinecraftVersion.olderThan(V.v1_8) ? null : find(list, NBTReflectionUtil.getRemoveMethodName(), methodType(void.class, Object.class, int.class), int.class);
+		LIST_SIZE = find(list, "size", methodType(int.class, Object.class));
+
+		AS_NMS_COPY = find(craftItem, "asNMSCopy", methodType(Object.class, ItemStack.class), ItemStack.class);
+		AS_CRAFT_MIRROR = find(craftItem, "asCraftMirror", methodType(ItemStack.class, Object.class), nmsItem);
+		GET_TAG = find(nmsItem, "getTag", methodType(Object.class, Object.class));
+		SET_TAG = find(nmsItem, "setTag", methodType(void.class, Object.class, Object.class), compound);
+
+		final Class<?> streamTools = ReflectionUtil.getNMSClass("NBTCompressedStreamTools");
+
+		WRITE_BINARY = find(streamTools, "a", methodType(void.class, Object.class, DataOutput.class), compound, DataOutput.class);
+		READ_BINARY = find(streamTools, "a", methodType(Object.class, DataInputStream.class), DataInputStream.class);
+	}
+
+	// Converts the method to a handle of the given type, or returns null and prints the error if it does not exist
+	private static MethodHandle find(Class<?> clazz, String name, MethodType type, Class<?>... params) {
+		try {
+			final Method method = ReflectionUtil.getMethod(clazz, name, params);
+
+			if (method == null)
+				throw new NoSuchMethodException(clazz.getSimpleName() + "#" + name);
+
+			return lookup.unreflect(method).asType(type);
+
+		} catch (final ReflectiveOperationException | RuntimeException ex) {
+			ex.printStackTrace();
+
+			return null;
+		}
+	}
+
+	// Converts the constructor to a handle of the given type, or returns null and prints the error if it does not exist
+	private static MethodHandle findConstructor(Class<?> clazz, MethodType type, Class<?>... params) {
+		try {
+			return lookup.unreflectConstructor(clazz.getConstructor(params)).asType(type);
+
+		} catch (final ReflectiveOperationException | RuntimeException ex) {
+			ex.printStackTrace();
+
+			return null;
+		}
+	}
+}
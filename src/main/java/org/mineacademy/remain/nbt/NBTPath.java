@@ -0,0 +1,126 @@
+package org.mineacademy.remain.nbt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a path filter into a tag tree used by {@link NBTStreamReader#select(NBTPath, java.util.function.BiConsumer)}
+ *
+ * Keys are separated by dots. A key can be "*" to match any key, and can be followed
+ * by "[]" to match every element of a list or "[n]" to match only the element at index n,
+ * for example "Inventory[].tag.MyPlugin" or "Inventory[0].id".
+ */
+public final class NBTPath {
+
+	/**
+	 * Matches any key or any list index
+	 */
+	private static final int ANY_INDEX = -1;
+
+	/**
+	 * The key for each segment, or null when the segment is a list index
+	 */
+	private final List<String> keys;
+
+	/**
+	 * The list index for each segment, only used when the key is null
+	 */
+	private final List<Integer> indexes;
+
+	/**
+	 * The original path text
+	 */
+	private final String path;
+
+	private NBTPath(String path, List<String> keys, List<Integer> indexes) {
+		this.path = path;
+		this.keys = keys;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Compile a path filter from its text form
+	 *
+	 * @param path
+	 * @return
+	 * @throws IllegalArgumentException if the path is malformed
+	 */
+	public static NBTPath compile(String path) {
+		final List<String> keys = new ArrayList<>();
+		final List<Integer> indexes = new ArrayList<>();
+
+		for (final String part : path.split("\\.", -1)) {
+			final int bracket = part.indexOf('[');
+			final String key = bracket == -1 ? part : part.substring(0, bracket);
+
+			if (key.isEmpty())
+				throw new IllegalArgumentException("Empty key in NBT path '" + path + "'");
+
+			keys.add(key);
+			indexes.add(ANY_INDEX);
+
+			if (bracket != -1)
+				for (final String index : part.substring(bracket).split("(?<=\\])")) {
+					if (!index.startsWith("[") || !index.endsWith("]"))
+						throw new IllegalArgumentException("Malformed list index '" + index + "' in NBT path '" + path + "'");
+
+					final String number = index.substring(1, index.length() - 1).trim();
+
+					final int parsed;
+
+					try {
+						parsed = number.isEmpty() ? ANY_INDEX : Integer.parseInt(number);
+
+					} catch (final NumberFormatException ex) {
+						throw new IllegalArgumentException("Malformed list index '" + index + "' in NBT path '" + path + "'");
+					}
+
+					keys.add(null);
+					indexes.add(parsed);
+				}
+		}
+
+		return new NBTPath(path, Collections.unmodifiableList(keys), Collections.unmodifiableList(indexes));
+	}
+
+	/**
+	 * Get how many keys and list indexes this path has
+	 *
+	 * @return
+	 */
+	public int size() {
+		return keys.size();
+	}
+
+	/**
+	 * Return true if the segment at the given depth matches a compound key
+	 *
+	 * @param depth
+	 * @param key
+	 * @return
+	 */
+	boolean matchesKey(int depth, String key) {
+		final String expected = keys.get(depth);
+
+		return expected != null && ("*".equals(expected) || expected.equals(key));
+	}
+
+	/**
+	 * Return true if the segment at the given depth matches a list index
+	 *
+	 * @param depth
+	 * @param index
+	 * @return
+	 */
+	boolean matchesIndex(int depth, int index) {
+		final int expected = indexes.get(depth);
+
+		return keys.get(depth) == null && (expected == ANY_INDEX || expected == index);
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
@@ -1,19 +1,22 @@
 package org.mineacademy.remain.nbt;
 
-import java.lang.reflect.Method;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.util.Set;
-import java.util.Stack;
 
 import org.bukkit.Material;
 import org.bukkit.block.BlockState;
 import org.bukkit.entity.Entity;
 import org.bukkit.inventory.ItemStack;
+import org.mineacademy.remain.util.JsonUtil;
 import org.mineacademy.remain.util.MinecraftVersion;
 import org.mineacademy.remain.util.ReflectionUtil;
 import org.mineacademy.remain.util.MinecraftVersion.V;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 
 /**
  * Utility class for manipulating NBT tags
@@ -21,15 +24,6 @@ import com.google.gson.JsonSyntaxException;
 @SuppressWarnings({ "rawtypes" })
 class NBTReflectionUtil {
 
-	/**
-	 * The Google's JSON library for serializing objects
-	 */
-	private static final Gson gson = new Gson();
-
-	private static Class getCraftItemStack() {
-		return ReflectionUtil.getOFCClass("inventory.CraftItemStack");
-	}
-
 	private static Class getCraftEntity() {
 		return ReflectionUtil.getOFCClass("entity.CraftEntity");
 	}
@@ -54,8 +48,13 @@ class NBTReflectionUtil {
 		return ReflectionUtil.getOFCClass("CraftWorld");
 	}
 
-	private static Object getNewNBTTag() {
-		return ReflectionUtil.instatiate(ReflectionUtil.getNMSClass("NBTTagCompound"));
+	static Object getNewNBTTag() {
+		try {
+			return NBTMethods.NEW_COMPOUND.invokeExact();
+
+		} catch (final Throwable t) {
+			throw new RuntimeException("Error in creating new nbt tag", t);
+		}
 	}
 
 	private static Object getNewBlockPosition(int x, int y, int z) {
@@ -70,13 +69,11 @@ class NBTReflectionUtil {
 
 	public static Object setNBTTag(Object NBTTag, Object NMSItem) {
 		try {
-			final Method method = NMSItem.getClass().getMethod("setTag", NBTTag.getClass());
-
-			method.invoke(NMSItem, NBTTag);
+			NBTMethods.SET_TAG.invokeExact(NMSItem, NBTTag);
 
 			return NMSItem;
 
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			throw new RuntimeException("Error in setting nbt tag", ex);
 		}
 	}
@@ -85,12 +82,10 @@ class NBTReflectionUtil {
 		if (item.getType() == Material.AIR)
 			return null;
 
-		final Class<?> cis = getCraftItemStack();
-
 		try {
-			return cis.getMethod("asNMSCopy", ItemStack.class).invoke(null, item);
+			return NBTMethods.AS_NMS_COPY.invokeExact(item);
 
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			throw new RuntimeException("Error in getting nms itemstack", ex);
 		}
 	}
@@ -107,11 +102,8 @@ class NBTReflectionUtil {
 	public static ItemStack getBukkitItemStack(Object item) {
 
 		try {
-			final Class cis = getCraftItemStack();
-			final Method method = getCraftItemStack().getMethod("asCraftMirror", item.getClass());
-
-			return (ItemStack) method.invoke(cis, item);
-		} catch (final Exception ex) {
+			return (ItemStack) NBTMethods.AS_CRAFT_MIRROR.invokeExact(item);
+		} catch (final Throwable ex) {
 			throw new RuntimeException("Error in getting bukkit itemstack", ex);
 		}
 	}
@@ -121,11 +113,9 @@ class NBTReflectionUtil {
 			return null;
 
 		try {
-			final Method method = nmsitem.getClass().getMethod("getTag");
-
-			return method.invoke(nmsitem);
+			return NBTMethods.GET_TAG.invokeExact(nmsitem);
 
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			throw new RuntimeException("Error in getting item root nbt tag", ex);
 		}
 	}
@@ -136,7 +126,7 @@ class NBTReflectionUtil {
 		java.lang.reflect.Method method;
 		try {
 			method = c.getMethod(getEntityGetNbtMethodName(), getNBTTagCompound());
-			final Object nbt = getNBTTagCompound().newInstance();
+			final Object nbt = getNewNBTTag();
 			Object answer = method.invoke(nmsitem, nbt);
 			if (answer == null)
 				answer = nbt;
@@ -167,7 +157,7 @@ class NBTReflectionUtil {
 			final Object nmsworld = cworld.getClass().getMethod("getHandle").invoke(cworld);
 			final Object o = nmsworld.getClass().getMethod("getTileEntity", pos.getClass()).invoke(nmsworld, pos);
 			method = getTileEntity().getMethod(getTileDataMethodName(), getNBTTagCompound());
-			final Object tag = getNBTTagCompound().newInstance();
+			final Object tag = getNewNBTTag();
 			Object answer = method.invoke(o, tag);
 			if (answer == null)
 				answer = tag;
@@ -193,14 +183,9 @@ class NBTReflectionUtil {
 	}
 
 	public static Object getSubNBTTagCompound(Object compound, String name) {
-
-		final Class c = compound.getClass();
-		java.lang.reflect.Method method;
 		try {
-			method = c.getMethod("getCompound", String.class);
-			final Object answer = method.invoke(compound, name);
-			return answer;
-		} catch (final Exception e) {
+			return NBTMethods.GET_COMPOUND.invokeExact(compound, name);
+		} catch (final Throwable e) {
 			e.printStackTrace();
 		}
 		return null;
@@ -215,17 +200,16 @@ class NBTReflectionUtil {
 		if (nbttag == null) {
 			nbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(nbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("set", String.class, getNBTBase());
-			method.invoke(workingtag, name, getNBTTagCompound().newInstance());
+			NBTMethods.SET.invokeExact(workingtag, name, getNewNBTTag());
+			comp.changeStructure();
 			comp.setCompound(nbttag);
 
 			return;
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return;
@@ -239,19 +223,25 @@ class NBTReflectionUtil {
 		return getToCompound(root, comp) != null;
 	}
 
+	// Setting a value over a compound detaches it, so NBTCompounds resolved for that key must resolve again
+	private static void changeStructureIfCompound(NBTCompound comp, Object workingtag, String key) {
+		if (comp.isResolvedKey(workingtag, key))
+			comp.changeStructure();
+	}
+
+	// Resolves the tag of the compound inside the root, reusing the parent's tag when it was resolved from the same root
 	private static Object getToCompound(Object nbttag, NBTCompound comp) {
-		final Stack<String> structure = new Stack<>();
-		while (comp.getParent() != null) {
-			structure.add(comp.getName());
-			comp = comp.getParent();
-		}
-		while (!structure.isEmpty()) {
-			nbttag = getSubNBTTagCompound(nbttag, structure.pop());
-			if (nbttag == null) {
-				return null;
-			}
-		}
-		return nbttag;
+		if (comp.getParent() == null)
+			return nbttag;
+
+		if (comp.isResolvedFrom(nbttag))
+			return comp.getResolvedTag();
+
+		final Object parentTag = getToCompound(nbttag, comp.getParent());
+		final Object tag = parentTag == null ? null : getSubNBTTagCompound(parentTag, comp.getName());
+
+		comp.setResolved(nbttag, parentTag, tag);
+		return tag;
 	}
 
 	public static void setString(NBTCompound comp, String key, String text) {
@@ -263,15 +253,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setString", String.class, String.class);
-			method.invoke(workingtag, key, text);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_STRING.invokeExact(workingtag, key, text);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -281,14 +270,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getString", String.class);
-			return (String) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (String) NBTMethods.GET_STRING.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -300,15 +287,15 @@ class NBTReflectionUtil {
 		if (root == null)
 			root = getNewNBTTag();
 
-		if (!validateCompound(comp))
-			return null;
-
 		final Object working = getToCompound(root, comp);
 
+		if (working == null)
+			return null;
+
 		try {
-			return working.getClass().getMethod("get", String.class).invoke(working, key);
+			return NBTMethods.GET.invokeExact(working, key);
 
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 
 			return null;
@@ -324,15 +311,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setInt", String.class, int.class);
-			method.invoke(workingtag, key, i);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_INT.invokeExact(workingtag, key, (int) i);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -342,14 +328,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getInt", String.class);
-			return (Integer) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (int) NBTMethods.GET_INT.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -364,15 +348,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setByteArray", String.class, byte[].class);
-			method.invoke(workingtag, key, b);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_BYTE_ARRAY.invokeExact(workingtag, key, b);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return;
@@ -383,14 +366,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getByteArray", String.class);
-			return (byte[]) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (byte[]) NBTMethods.GET_BYTE_ARRAY.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -405,15 +386,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setIntArray", String.class, int[].class);
-			method.invoke(workingtag, key, i);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_INT_ARRAY.invokeExact(workingtag, key, i);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -423,14 +403,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getIntArray", String.class);
-			return (int[]) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (int[]) NBTMethods.GET_INT_ARRAY.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -445,15 +423,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setFloat", String.class, float.class);
-			method.invoke(workingtag, key, (float) f);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_FLOAT.invokeExact(workingtag, key, (float) f);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -463,14 +440,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getFloat", String.class);
-			return (Float) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (float) NBTMethods.GET_FLOAT.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -485,15 +460,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setLong", String.class, long.class);
-			method.invoke(workingtag, key, (long) f);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_LONG.invokeExact(workingtag, key, (long) f);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -503,14 +477,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getLong", String.class);
-			return (Long) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (long) NBTMethods.GET_LONG.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -525,15 +497,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setShort", String.class, short.class);
-			method.invoke(workingtag, key, (short) f);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_SHORT.invokeExact(workingtag, key, (short) f);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -543,14 +514,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getShort", String.class);
-			return (Short) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (short) NBTMethods.GET_SHORT.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -565,15 +534,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setByte", String.class, byte.class);
-			method.invoke(workingtag, key, (byte) f);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_BYTE.invokeExact(workingtag, key, (byte) f);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -583,14 +551,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getByte", String.class);
-			return (Byte) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (byte) NBTMethods.GET_BYTE.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -605,15 +571,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setDouble", String.class, double.class);
-			method.invoke(workingtag, key, d);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_DOUBLE.invokeExact(workingtag, key, (double) d);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -623,14 +588,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getDouble", String.class);
-			return (Double) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (double) NBTMethods.GET_DOUBLE.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -641,14 +604,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return 0;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return 0;
 		try {
-			method = workingtag.getClass().getMethod(getTypeMethodName(), String.class);
-			return (byte) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (byte) NBTMethods.GET_TYPE.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return 0;
@@ -663,15 +624,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("setBoolean", String.class, boolean.class);
-			method.invoke(workingtag, key, d);
+			changeStructureIfCompound(comp, workingtag, key);
+			NBTMethods.SET_BOOLEAN.invokeExact(workingtag, key, (boolean) d);
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -681,14 +641,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getBoolean", String.class);
-			return (Boolean) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (boolean) NBTMethods.GET_BOOLEAN.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -703,18 +661,16 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp)) {
+		final Object workingtag = getToCompound(rootnbttag, comp);
+		if (workingtag == null) {
 			new Throwable("Invalid compound " + comp).printStackTrace();
 			return;
 		}
-		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
 		try {
-			method = workingtag.getClass().getMethod("set", String.class, getNBTBase());
-
-			method.invoke(workingtag, key, val);
+			NBTMethods.SET.invokeExact(workingtag, key, val);
+			comp.changeStructure();
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -724,14 +680,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("getList", String.class, int.class);
-			return new NBTList(comp, key, type, method.invoke(workingtag, key, type.getId()));
-		} catch (final Exception ex) {
+			return new NBTList(comp, key, type, (Object) NBTMethods.GET_LIST.invokeExact(workingtag, key, type.getId()));
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -754,17 +708,15 @@ class NBTReflectionUtil {
 		try {
 			return deserializeJson(json, type);
 
-		} catch (final JsonSyntaxException ex) {
+		} catch (final JsonParseException ex) {
 			ex.printStackTrace();
 
 			return null;
 		}
 	}
 
-	private static <T> T deserializeJson(String json, Class<T> type) throws JsonSyntaxException {
-		final T obj = gson.fromJson(json, type);
-
-		return type.cast(obj);
+	private static <T> T deserializeJson(String json, Class<T> type) throws JsonParseException {
+		return JsonUtil.fromJson(json, type);
 	}
 
 	public static void remove(NBTCompound comp, String key) {
@@ -772,15 +724,14 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return;
 		try {
-			method = workingtag.getClass().getMethod("remove", String.class);
-			method.invoke(workingtag, key);
+			NBTMethods.REMOVE.invokeExact(workingtag, key);
+			comp.changeStructure();
 			comp.setCompound(rootnbttag);
-		} catch (final Exception ex) {
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 	}
@@ -790,14 +741,12 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
-			return null;
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod("hasKey", String.class);
-			return (Boolean) method.invoke(workingtag, key);
-		} catch (final Exception ex) {
+			return (boolean) NBTMethods.HAS_KEY.invokeExact(workingtag, key);
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
@@ -808,19 +757,58 @@ class NBTReflectionUtil {
 		if (rootnbttag == null) {
 			rootnbttag = getNewNBTTag();
 		}
-		if (!validateCompound(comp))
+		final Object workingtag = getToCompound(rootnbttag, comp);
+		if (workingtag == null)
 			return null;
+		try {
+			return (Set<String>) NBTMethods.GET_KEYS.invokeExact(workingtag);
+		} catch (final Throwable ex) {
+			ex.printStackTrace();
+		}
+		return null;
+	}
+
+	public static TagCompound toTag(NBTCompound comp) {
+		Object rootnbttag = comp.getCompound();
+		if (rootnbttag == null) {
+			rootnbttag = getNewNBTTag();
+		}
 		final Object workingtag = getToCompound(rootnbttag, comp);
-		java.lang.reflect.Method method;
+		if (workingtag == null)
+			return null;
 		try {
-			method = workingtag.getClass().getMethod(MinecraftVersion.atLeast(V.v1_13) ? "getKeys" : "c");
-			return (Set<String>) method.invoke(workingtag);
-		} catch (final Exception ex) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			NBTMethods.WRITE_BINARY.invokeExact(workingtag, (DataOutput) new DataOutputStream(bytes));
+
+			return NBTCodec.read(bytes.toByteArray());
+		} catch (final Throwable ex) {
 			ex.printStackTrace();
 		}
 		return null;
 	}
 
+	public static void mergeTag(NBTCompound comp, TagCompound tag) {
+		Object rootnbttag = comp.getCompound();
+		if (rootnbttag == null) {
+			rootnbttag = getNewNBTTag();
+		}
+		final Object workingtag = getToCompound(rootnbttag, comp);
+		if (workingtag == null)
+			return;
+		try {
+			final byte[] bytes = NBTCodec.toByteArray(tag, NBTCodec.Compression.NONE);
+			final Object nmsTag = NBTMethods.READ_BINARY.invokeExact(new DataInputStream(new ByteArrayInputStream(bytes)));
+
+			for (final String key : (Set<String>) NBTMethods.GET_KEYS.invokeExact(nmsTag))
+				NBTMethods.SET.invokeExact(workingtag, key, NBTMethods.GET.invokeExact(nmsTag, key));
+
+			comp.changeStructure();
+			comp.setCompound(rootnbttag);
+		} catch (final Throwable ex) {
+			ex.printStackTrace();
+		}
+	}
+
 	protected static String getTileDataMethodName() {
 		return MinecraftVersion.olderThan(V.v1_9) ? "b" : "save";
 	}
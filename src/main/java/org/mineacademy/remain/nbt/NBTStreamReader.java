@@ -0,0 +1,766 @@
+package org.mineacademy.remain.nbt;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads binary tag data one event at a time, without building the whole tree,
+ * so large player and region files can be scanned with little memory
+ *
+ * Call {@link #next()} to move to the next tag. Values are only read when asked for
+ * by {@link #getValue()}, and {@link #skip()} jumps over a whole compound or list
+ * without reading it. See {@link #select(NBTPath, BiConsumer)} to pull out only
+ * the parts matching a path.
+ */
+public final class NBTStreamReader implements Closeable {
+
+	/**
+	 * Represents what the reader has moved to
+	 */
+	public enum Event {
+
+		/**
+		 * A compound was entered, its entries follow
+		 */
+		START_COMPOUND,
+
+		/**
+		 * The end of the current compound was reached
+		 */
+		END_COMPOUND,
+
+		/**
+		 * A list was entered, its elements follow
+		 */
+		START_LIST,
+
+		/**
+		 * The end of the current list was reached
+		 */
+		END_LIST,
+
+		/**
+		 * A tag that is neither a compound nor a list, see {@link NBTStreamReader#getValue()}
+		 */
+		VALUE,
+
+		/**
+		 * The root compound was read completely
+		 */
+		END_DOCUMENT
+	}
+
+	/**
+	 * The data we read from
+	 */
+	private final TagInput in;
+
+	/**
+	 * The resource to close with this reader, or null
+	 */
+	private final Closeable resource;
+
+	/**
+	 * The compounds and lists we are currently inside, the innermost first
+	 */
+	private final Deque<Frame> frames = new ArrayDeque<>();
+
+	/**
+	 * The event we last moved to
+	 */
+	private Event event;
+
+	/**
+	 * The tag type id of the current tag
+	 */
+	private byte type;
+
+	/**
+	 * The key of the current tag, or null if it is a list element
+	 */
+	private String name;
+
+	/**
+	 * The index of the current tag in its list, or -1 if it is in a compound
+	 */
+	private int index = -1;
+
+	/**
+	 * Whether the payload of the current value has not been read yet
+	 */
+	private boolean valuePending;
+
+	/**
+	 * Whether the root tag header was read
+	 */
+	private boolean started;
+
+	private NBTStreamReader(TagInput in, Closeable resource) {
+		this.in = in;
+		this.resource = resource;
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Opening
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Open the file, detecting its compression. Uncompressed files are mapped
+	 * to memory, compressed files are read through a buffered stream.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static NBTStreamReader open(Path file) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try {
+			final ByteBuffer header = ByteBuffer.allocate(2);
+
+			channel.read(header, 0);
+
+			final boolean gzip = header.position() == 2 && (header.get(0) & 0xFF) == 0x1F && (header.get(1) & 0xFF) == 0x8B;
+			final boolean zlib = header.position() == 2 && (header.get(0) & 0xFF) == 0x78 && ((header.get(0) & 0xFF) << 8 | header.get(1) & 0xFF) % 31 == 0;
+
+			if (!gzip && !zlib) {
+				final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+				channel.close();
+				return of(mapped);
+			}
+
+			final InputStream stream = NBTCodec.decompress(new BufferedInputStream(Channels.newInputStream(channel)), gzip ? NBTCodec.Compression.GZIP : NBTCodec.Compression.ZLIB);
+
+			return new NBTStreamReader(TagInput.of(new DataInputStream(stream)), stream);
+
+		} catch (final IOException | RuntimeException ex) {
+			channel.close();
+
+			throw ex;
+		}
+	}
+
+	/**
+	 * Read uncompressed tag data from the buffer, starting at its position,
+	 * for example a mapped file or a decompressed region chunk
+	 *
+	 * @param buffer
+	 * @return
+	 */
+	public static NBTStreamReader of(ByteBuffer buffer) {
+		return new NBTStreamReader(new ByteBufferInput(buffer), null);
+	}
+
+	/**
+	 * Read tag data from the stream, detecting its compression
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static NBTStreamReader of(InputStream in) throws IOException {
+		final InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+		final InputStream stream = NBTCodec.decompress(buffered, NBTCodec.detectCompression(buffered));
+
+		return new NBTStreamReader(TagInput.of(new DataInputStream(stream)), stream);
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Cursor
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Move to the next tag, skipping the value of the current one if it was not read
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public Event next() throws IOException {
+		if (valuePending)
+			skipValue();
+
+		if (frames.isEmpty()) {
+			if (started)
+				return event = Event.END_DOCUMENT;
+
+			started = true;
+			type = in.readByte();
+
+			if (type != NBTCodec.TAG_COMPOUND)
+				throw new IOException("Root tag must be a compound, got type " + type);
+
+			name = in.readUTF();
+			index = -1;
+
+			return enter();
+		}
+
+		final Frame frame = frames.peek();
+
+		if (frame.list) {
+			if (frame.remaining == 0) {
+				frames.pop();
+
+				return event = Event.END_LIST;
+			}
+
+			frame.remaining--;
+
+			type = frame.elementType;
+			name = null;
+			index = frame.nextIndex++;
+
+		} else {
+			type = in.readByte();
+
+			if (type == NBTCodec.TAG_END) {
+				frames.pop();
+
+				return event = Event.END_COMPOUND;
+			}
+
+			name = in.readUTF();
+			index = -1;
+		}
+
+		return enter();
+	}
+
+	/**
+	 * Skip the current value, or the rest of the compound or list that was just entered
+	 *
+	 * @throws IOException
+	 */
+	public void skip() throws IOException {
+		if (event == Event.VALUE) {
+			if (valuePending)
+				skipValue();
+
+		} else if (event == Event.START_COMPOUND || event == Event.START_LIST) {
+			final Frame frame = frames.pop();
+
+			if (frame.list) {
+				for (; frame.remaining > 0; frame.remaining--)
+					skipPayload(frame.elementType, frames.size() + 1);
+
+				event = Event.END_LIST;
+
+			} else {
+				skipCompound(frames.size() + 1);
+
+				event = Event.END_COMPOUND;
+			}
+		}
+	}
+
+	/**
+	 * Read the current value
+	 *
+	 * @return the value, see {@link TagCompound} for the possible types
+	 * @throws IOException
+	 * @throws IllegalStateException if the reader is not at an unread value
+	 */
+	public Object getValue() throws IOException {
+		if (event != Event.VALUE || !valuePending)
+			throw new IllegalStateException("Reader is not at an unread value, but at " + event);
+
+		valuePending = false;
+
+		return NBTCodec.readPayload(in, type, frames.size());
+	}
+
+	/**
+	 * Read the current tag completely. If a compound or list was just entered,
+	 * its remaining content is read into a {@link TagCompound} or {@link TagList}.
+	 *
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalStateException if the reader is not at the start of a tag
+	 */
+	public Object readTag() throws IOException {
+		if (event == Event.VALUE)
+			return getValue();
+
+		if (event == Event.START_COMPOUND) {
+			frames.pop();
+			event = Event.END_COMPOUND;
+
+			return NBTCodec.readCompound(in, frames.size() + 1);
+		}
+
+		if (event == Event.START_LIST) {
+			final Frame frame = frames.pop();
+			event = Event.END_LIST;
+
+			return NBTCodec.readList(in, frame.elementType, frame.remaining, frames.size() + 1);
+		}
+
+		throw new IllegalStateException("Reader is not at the start of a tag, but at " + event);
+	}
+
+	/**
+	 * Read through the rest of the data and pass every tag matching the path to the handler
+	 * together with its actual path, for example "Inventory[3].tag.MyPlugin".
+	 * Subtrees that cannot match are skipped without being read.
+	 *
+	 * @param path
+	 * @param handler
+	 * @throws IOException
+	 */
+	public void select(NBTPath path, BiConsumer<String, Object> handler) throws IOException {
+		Event next;
+
+		while ((next = next()) != Event.END_DOCUMENT) {
+			if (next == Event.END_COMPOUND || next == Event.END_LIST)
+				continue;
+
+			final int depth = next == Event.VALUE ? frames.size() : frames.size() - 1;
+
+			// The root compound
+			if (depth == 0)
+				continue;
+
+			final boolean matches = index == -1 ? path.matchesKey(depth - 1, name) : path.matchesIndex(depth - 1, index);
+
+			if (!matches)
+				skip();
+
+			else if (depth == path.size())
+				handler.accept(getPath(), readTag());
+
+			else if (next == Event.VALUE)
+				skip();
+		}
+	}
+
+	/**
+	 * Get the event we last moved to
+	 *
+	 * @return
+	 */
+	public Event getEvent() {
+		return event;
+	}
+
+	/**
+	 * Get the tag type id of the current tag
+	 *
+	 * @return
+	 */
+	public byte getType() {
+		return type;
+	}
+
+	/**
+	 * Get the key of the current tag, or null if it is a list element
+	 *
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the index of the current tag in its list, or -1 if it is in a compound
+	 *
+	 * @return
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Get the number of elements in the list that was just entered
+	 *
+	 * @return
+	 */
+	public int getListLength() {
+		if (event != Event.START_LIST)
+			throw new IllegalStateException("Reader is not at the start of a list, but at " + event);
+
+		return frames.peek().remaining;
+	}
+
+	/**
+	 * Get the path to the current tag, for example "Inventory[3].tag"
+	 *
+	 * @return
+	 */
+	public String getPath() {
+		final StringBuilder path = new StringBuilder();
+		final Iterator<Frame> it = frames.descendingIterator();
+
+		// The root compound has no segment
+		if (it.hasNext())
+			it.next();
+
+		while (it.hasNext()) {
+			final Frame frame = it.next();
+
+			appendSegment(path, frame.name, frame.index);
+		}
+
+		if (event == Event.VALUE)
+			appendSegment(path, name, index);
+
+		return path.toString();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (resource != null)
+			resource.close();
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Internals
+	// ------------------------------------------------------------------------------------------
+
+	// Pushes a frame when the current tag is a compound or list, or marks its value as pending
+	private Event enter() throws IOException {
+		if (type == NBTCodec.TAG_COMPOUND) {
+			NBTCodec.checkDepth(frames.size());
+			frames.push(new Frame(name, index, false, NBTCodec.TAG_END, 0));
+
+			return event = Event.START_COMPOUND;
+		}
+
+		if (type == NBTCodec.TAG_LIST) {
+			NBTCodec.checkDepth(frames.size());
+
+			final byte elementType = in.readByte();
+			final int length = NBTCodec.readLength(in);
+
+			if (elementType == NBTCodec.TAG_END && length > 0)
+				throw new IOException("Missing element type of a non-empty list at " + getPath());
+
+			frames.push(new Frame(name, index, true, elementType, length));
+
+			return event = Event.START_LIST;
+		}
+
+		valuePending = true;
+
+		return event = Event.VALUE;
+	}
+
+	// Skips the payload of the current value
+	private void skipValue() throws IOException {
+		valuePending = false;
+
+		skipPayload(type, frames.size());
+	}
+
+	// Skips the entries of a compound up to and including its end tag
+	private void skipCompound(int depth) throws IOException {
+		NBTCodec.checkDepth(depth);
+
+		byte entryType;
+
+		while ((entryType = in.readByte()) != NBTCodec.TAG_END) {
+			skipFully(in.readUnsignedShort());
+			skipPayload(entryType, depth + 1);
+		}
+	}
+
+	// Skips the payload of a tag of the given type without reading it into objects
+	private void skipPayload(byte type, int depth) throws IOException {
+		switch (type) {
+			case NBTCodec.TAG_BYTE:
+				skipFully(1);
+				break;
+
+			case NBTCodec.TAG_SHORT:
+				skipFully(2);
+				break;
+
+			case NBTCodec.TAG_INT:
+			case NBTCodec.TAG_FLOAT:
+				skipFully(4);
+				break;
+
+			case NBTCodec.TAG_LONG:
+			case NBTCodec.TAG_DOUBLE:
+				skipFully(8);
+				break;
+
+			case NBTCodec.TAG_BYTE_ARRAY:
+				skipFully(NBTCodec.readLength(in));
+				break;
+
+			case NBTCodec.TAG_STRING:
+				skipFully(in.readUnsignedShort());
+				break;
+
+			case NBTCodec.TAG_LIST: {
+				NBTCodec.checkDepth(depth);
+
+				final byte elementType = in.readByte();
+				final int length = NBTCodec.readLength(in);
+				final int elementSize = getFixedSize(elementType);
+
+				if (elementSize > 0)
+					skipFully((long) elementSize * length);
+
+				else
+					for (int i = 0; i < length; i++)
+						skipPayload(elementType, depth + 1);
+
+				break;
+			}
+
+			case NBTCodec.TAG_COMPOUND:
+				skipCompound(depth);
+				break;
+
+			case NBTCodec.TAG_INT_ARRAY:
+				skipFully(4L * NBTCodec.readLength(in));
+				break;
+
+			case NBTCodec.TAG_LONG_ARRAY:
+				skipFully(8L * NBTCodec.readLength(in));
+				break;
+
+			default:
+				throw new IOException("Unknown tag type " + type + " at " + getPath());
+		}
+	}
+
+	// Returns the payload size of tags with a fixed size, or -1
+	private static int getFixedSize(byte type) {
+		switch (type) {
+			case NBTCodec.TAG_BYTE:
+				return 1;
+
+			case NBTCodec.TAG_SHORT:
+				return 2;
+
+			case NBTCodec.TAG_INT:
+			case NBTCodec.TAG_FLOAT:
+				return 4;
+
+			case NBTCodec.TAG_LONG:
+			case NBTCodec.TAG_DOUBLE:
+				return 8;
+
+			default:
+				return -1;
+		}
+	}
+
+	// Skips exactly the given amount of bytes, since skipBytes may skip less
+	private void skipFully(long count) throws IOException {
+		while (count > 0) {
+			final int skipped = in.skipBytes((int) Math.min(count, Integer.MAX_VALUE));
+
+			if (skipped > 0)
+				count -= skipped;
+
+			else {
+				// Either end of data, which throws, or a stream that cannot skip right now
+				in.readByte();
+				count--;
+			}
+		}
+	}
+
+	// Appends a key as ".key" or a list index as "[index]"
+	private static void appendSegment(StringBuilder path, String name, int index) {
+		if (name == null)
+			path.append('[').append(index).append(']');
+
+		else {
+			if (path.length() > 0)
+				path.append('.');
+
+			path.append(name);
+		}
+	}
+
+	/**
+	 * Represents a compound or list we are inside
+	 */
+	private static final class Frame {
+
+		/**
+		 * The key of this tag, or null if it is a list element
+		 */
+		private final String name;
+
+		/**
+		 * The index of this tag in its list, or -1
+		 */
+		private final int index;
+
+		/**
+		 * Whether this is a list
+		 */
+		private final boolean list;
+
+		/**
+		 * The element type if this is a list
+		 */
+		private final byte elementType;
+
+		/**
+		 * How many list elements are left to read
+		 */
+		private int remaining;
+
+		/**
+		 * The index of the next list element
+		 */
+		private int nextIndex;
+
+		private Frame(String name, int index, boolean list, byte elementType, int remaining) {
+			this.name = name;
+			this.index = index;
+			this.list = list;
+			this.elementType = elementType;
+			this.remaining = remaining;
+		}
+	}
+
+	/**
+	 * Reads big-endian data from a byte buffer such as a mapped file
+	 */
+	private static final class ByteBufferInput implements TagInput {
+
+		/**
+		 * Our own view of the buffer so its position is not shared
+		 */
+		private final ByteBuffer buffer;
+
+		private ByteBufferInput(ByteBuffer buffer) {
+			this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		}
+
+		@Override
+		public void readFully(byte[] bytes, int offset, int length) throws IOException {
+			require(length);
+			buffer.get(bytes, offset, length);
+		}
+
+		@Override
+		public int skipBytes(int count) throws IOException {
+			require(count);
+			buffer.position(buffer.position() + count);
+
+			return count;
+		}
+
+		@Override
+		public byte readByte() throws IOException {
+			require(1);
+
+			return buffer.get();
+		}
+
+		@Override
+		public short readShort() throws IOException {
+			require(2);
+
+			return buffer.getShort();
+		}
+
+		@Override
+		public int readUnsignedShort() throws IOException {
+			return readShort() & 0xFFFF;
+		}
+
+		@Override
+		public int readInt() throws IOException {
+			require(4);
+
+			return buffer.getInt();
+		}
+
+		@Override
+		public long readLong() throws IOException {
+			require(8);
+
+			return buffer.getLong();
+		}
+
+		@Override
+		public float readFloat() throws IOException {
+			require(4);
+
+			return buffer.getFloat();
+		}
+
+		@Override
+		public double readDouble() throws IOException {
+			require(8);
+
+			return buffer.getDouble();
+		}
+
+		// Decodes the modified UTF-8 of DataInput#readUTF straight from the buffer
+		@Override
+		public String readUTF() throws IOException {
+			final int length = readUnsignedShort();
+
+			require(length);
+
+			final int end = buffer.position() + length;
+			final char[] chars = new char[length];
+			int count = 0;
+
+			while (buffer.position() < end) {
+				final int first = buffer.get() & 0xFF;
+
+				if (first < 0x80)
+					chars[count++] = (char) first;
+
+				else if ((first & 0xE0) == 0xC0)
+					chars[count++] = (char) ((first & 0x1F) << 6 | readContinuation(end));
+
+				else if ((first & 0xF0) == 0xE0) {
+					final int second = readContinuation(end);
+
+					chars[count++] = (char) ((first & 0x0F) << 12 | second << 6 | readContinuation(end));
+
+				} else
+					throw new UTFDataFormatException("Malformed input around byte " + (buffer.position() - 1));
+			}
+
+			return new String(chars, 0, count);
+		}
+
+		// Reads the low six bits of the next byte of a multi byte character
+		private int readContinuation(int end) throws UTFDataFormatException {
+			if (buffer.position() >= end)
+				throw new UTFDataFormatException("Partial character at end of input");
+
+			final int next = buffer.get() & 0xFF;
+
+			if ((next & 0xC0) != 0x80)
+				throw new UTFDataFormatException("Malformed input around byte " + (buffer.position() - 1));
+
+			return next & 0x3F;
+		}
+
+		// Throws EOFException instead of BufferUnderflowException when the data ends early
+		private void require(int count) throws EOFException {
+			if (count < 0 || buffer.remaining() < count)
+				throw new EOFException("Needed " + count + " bytes but only " + buffer.remaining() + " are left");
+		}
+	}
+}
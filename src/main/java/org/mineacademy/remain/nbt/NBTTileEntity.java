@@ -4,6 +4,9 @@ import org.bukkit.block.BlockState;
 
 /**
  * Represents a tile entity's NBT tag
+ *
+ * The tag is copied from the tile entity on every access, so compounds inside it are
+ * looked up from the top each time instead of reusing their cached tag.
  */
 public class NBTTileEntity extends NBTCompound {
 
@@ -0,0 +1,175 @@
+package org.mineacademy.remain.nbt;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents a compound tag read by {@link NBTCodec}, held as plain Java objects
+ * without any server classes so it can be used on any thread
+ *
+ * Values are Byte, Short, Integer, Long, Float, Double, byte[], String,
+ * {@link TagList}, TagCompound, int[] or long[].
+ */
+public final class TagCompound {
+
+	/**
+	 * The values by their keys, in the order they were read or put
+	 */
+	private final Map<String, Object> values = new LinkedHashMap<>();
+
+	/**
+	 * Put a value, or remove the key if the value is null
+	 *
+	 * @param key
+	 * @param value
+	 * @return this compound
+	 */
+	public TagCompound put(String key, Object value) {
+		Objects.requireNonNull(key, "Key cannot be null");
+
+		if (value == null)
+			values.remove(key);
+
+		else {
+			NBTCodec.getTypeId(value);
+
+			values.put(key, value);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Get a value, or null if not set
+	 *
+	 * @param key
+	 * @return
+	 */
+	public Object get(String key) {
+		return values.get(key);
+	}
+
+	/**
+	 * Get the tag type id of the value, or 0 (TAG_End) if not set
+	 *
+	 * @param key
+	 * @return
+	 */
+	public byte getTypeId(String key) {
+		final Object value = values.get(key);
+
+		return value == null ? NBTCodec.TAG_END : NBTCodec.getTypeId(value);
+	}
+
+	public byte getByte(String key) {
+		return getNumber(key).byteValue();
+	}
+
+	public short getShort(String key) {
+		return getNumber(key).shortValue();
+	}
+
+	public int getInt(String key) {
+		return getNumber(key).intValue();
+	}
+
+	public long getLong(String key) {
+		return getNumber(key).longValue();
+	}
+
+	public float getFloat(String key) {
+		return getNumber(key).floatValue();
+	}
+
+	public double getDouble(String key) {
+		return getNumber(key).doubleValue();
+	}
+
+	public boolean getBoolean(String key) {
+		return getByte(key) != 0;
+	}
+
+	public String getString(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof String ? (String) value : "";
+	}
+
+	public byte[] getByteArray(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof byte[] ? (byte[]) value : new byte[0];
+	}
+
+	public int[] getIntArray(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof int[] ? (int[]) value : new int[0];
+	}
+
+	public long[] getLongArray(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof long[] ? (long[]) value : new long[0];
+	}
+
+	/**
+	 * Get a nested compound, or null if not set
+	 *
+	 * @param key
+	 * @return
+	 */
+	public TagCompound getCompound(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof TagCompound ? (TagCompound) value : null;
+	}
+
+	/**
+	 * Get a list, or null if not set
+	 *
+	 * @param key
+	 * @return
+	 */
+	public TagList getList(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof TagList ? (TagList) value : null;
+	}
+
+	public boolean hasKey(String key) {
+		return values.containsKey(key);
+	}
+
+	public void remove(String key) {
+		values.remove(key);
+	}
+
+	/**
+	 * Get all keys in this compound, in order
+	 *
+	 * @return
+	 */
+	public Set<String> getKeys() {
+		return Collections.unmodifiableSet(values.keySet());
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	// Returns the value as number, or zero like NMS does when the key is missing
+	private Number getNumber(String key) {
+		final Object value = values.get(key);
+
+		return value instanceof Number ? (Number) value : 0;
+	}
+
+	@Override
+	public String toString() {
+		return values.toString();
+	}
+}
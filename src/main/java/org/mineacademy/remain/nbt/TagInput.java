@@ -0,0 +1,113 @@
+package org.mineacademy.remain.nbt;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * The reads that binary tag data is made of, see {@link NBTCodec} and {@link NBTStreamReader}
+ *
+ * Only holds what tag readers use, so a source such as a byte buffer implements
+ * these few methods instead of all of {@link DataInput}. Values are big-endian and
+ * strings are in the modified UTF-8 of {@link DataInput#readUTF()}.
+ */
+interface TagInput {
+
+	byte readByte() throws IOException;
+
+	short readShort() throws IOException;
+
+	int readUnsignedShort() throws IOException;
+
+	int readInt() throws IOException;
+
+	long readLong() throws IOException;
+
+	float readFloat() throws IOException;
+
+	double readDouble() throws IOException;
+
+	String readUTF() throws IOException;
+
+	void readFully(byte[] bytes, int offset, int length) throws IOException;
+
+	/**
+	 * Skip up to the given amount of bytes
+	 *
+	 * @param count
+	 * @return how many bytes were skipped, may be less than count
+	 * @throws IOException
+	 */
+	int skipBytes(int count) throws IOException;
+
+	/**
+	 * Read tag data from the data input
+	 *
+	 * @param in
+	 * @return
+	 */
+	static TagInput of(DataInput in) {
+		return new DataInputTagInput(in);
+	}
+
+	/**
+	 * Forwards all reads to a {@link DataInput}
+	 */
+	final class DataInputTagInput implements TagInput {
+
+		private final DataInput in;
+
+		private DataInputTagInput(DataInput in) {
+			this.in = in;
+		}
+
+		@Override
+		public byte readByte() throws IOException {
+			return in.readByte();
+		}
+
+		@Override
+		public short readShort() throws IOException {
+			return in.readShort();
+		}
+
+		@Override
+		public int readUnsignedShort() throws IOException {
+			return in.readUnsignedShort();
+		}
+
+		@Override
+		public int readInt() throws IOException {
+			return in.readInt();
+		}
+
+		@Override
+		public long readLong() throws IOException {
+			return in.readLong();
+		}
+
+		@Override
+		public float readFloat() throws IOException {
+			return in.readFloat();
+		}
+
+		@Override
+		public double readDouble() throws IOException {
+			return in.readDouble();
+		}
+
+		@Override
+		public String readUTF() throws IOException {
+			return in.readUTF();
+		}
+
+		@Override
+		public void readFully(byte[] bytes, int offset, int length) throws IOException {
+			in.readFully(bytes, offset, length);
+		}
+
+		@Override
+		public int skipBytes(int count) throws IOException {
+			return in.skipBytes(count);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package org.mineacademy.remain.nbt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a list tag read by {@link NBTCodec}. All elements share the same type.
+ */
+public final class TagList {
+
+	/**
+	 * The tag type id of the elements, TAG_End while the list is empty
+	 */
+	private byte elementType;
+
+	/**
+	 * The elements
+	 */
+	private final List<Object> elements;
+
+	/**
+	 * Create a new empty list
+	 */
+	public TagList() {
+		this(NBTCodec.TAG_END, 0);
+	}
+
+	TagList(byte elementType, int capacity) {
+		this.elementType = elementType;
+		this.elements = new ArrayList<>(capacity);
+	}
+
+	/**
+	 * Add a value. The first value sets the element type of the list.
+	 *
+	 * @param value
+	 * @return this list
+	 */
+	public TagList add(Object value) {
+		checkType(value);
+		elements.add(value);
+
+		return this;
+	}
+
+	/**
+	 * Replace the value at the given index
+	 *
+	 * @param index
+	 * @param value
+	 */
+	public void set(int index, Object value) {
+		checkType(value);
+		elements.set(index, value);
+	}
+
+	public Object get(int index) {
+		return elements.get(index);
+	}
+
+	public TagCompound getCompound(int index) {
+		return (TagCompound) elements.get(index);
+	}
+
+	public String getString(int index) {
+		return (String) elements.get(index);
+	}
+
+	public void remove(int index) {
+		elements.remove(index);
+	}
+
+	public int size() {
+		return elements.size();
+	}
+
+	public byte getElementType() {
+		return elementType;
+	}
+
+	/**
+	 * Get an unmodifiable view of the elements
+	 *
+	 * @return
+	 */
+	public List<Object> getElements() {
+		return Collections.unmodifiableList(elements);
+	}
+
+	// Sets the element type from the first value and rejects values of any other type
+	private void checkType(Object value) {
+		final byte type = NBTCodec.getTypeId(value);
+
+		if (elementType == NBTCodec.TAG_END || elements.isEmpty())
+			elementType = type;
+
+		else if (elementType != type)
+			throw new IllegalArgumentException("Cannot add tag type " + type + " to a list of type " + elementType);
+	}
+
+	@Override
+	public String toString() {
+		return elements.toString();
+	}
+}
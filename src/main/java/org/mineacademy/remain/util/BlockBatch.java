@@ -0,0 +1,257 @@
+package org.mineacademy.remain.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+import org.mineacademy.remain.model.CompMaterial;
+
+/**
+ * Writes many blocks of one world, spread over as many ticks as needed
+ *
+ * Blocks are grouped by chunk as they are added and written chunk by chunk.
+ * Each tick writes blocks until its time budget is used up and continues
+ * on the next tick. Block states are resolved once per material and data,
+ * see {@link BlockWriter}.
+ *
+ * Only use from the main thread.
+ */
+public final class BlockBatch {
+
+	/**
+	 * How many blocks are written between checks of the time budget
+	 */
+	private static final int BUDGET_CHECK_INTERVAL = 64;
+
+	/**
+	 * The world blocks are written to
+	 */
+	private final World world;
+
+	/**
+	 * The blocks to write grouped by their chunk
+	 */
+	private final Map<Long, List<Entry>> chunks = new LinkedHashMap<>();
+
+	/**
+	 * Whether to apply physics, such as updating neighbour blocks
+	 */
+	private boolean physics = true;
+
+	/**
+	 * How long each tick may write blocks in nanoseconds
+	 */
+	private long tickBudget = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * How many blocks were added
+	 */
+	private int size;
+
+	/**
+	 * Whether the batch was applied already
+	 */
+	private boolean applied;
+
+	/**
+	 * Create a new batch for the world
+	 *
+	 * @param world
+	 */
+	public BlockBatch(World world) {
+		Validate.notNull(world, "World cannot be null");
+
+		this.world = world;
+	}
+
+	/**
+	 * Add a block to write, a block added twice ends up as the one added last
+	 *
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param material
+	 * @param data
+	 * @return this batch
+	 */
+	public BlockBatch add(int x, int y, int z, CompMaterial material, byte data) {
+		Validate.isTrue(!applied, "Cannot add blocks to a batch that was applied already");
+
+		chunks.computeIfAbsent((long) (x >> 4) << 32 | (z >> 4) & 0xFFFFFFFFL, key -> new ArrayList<>()).add(new Entry(x, y, z, BlockWriter.getState(material.getMaterial(), data)));
+		size++;
+
+		return this;
+	}
+
+	/**
+	 * Add a block to write with the data of the material
+	 *
+	 * @param location
+	 * @param material
+	 * @return this batch
+	 */
+	public BlockBatch add(Location location, CompMaterial material) {
+		return add(location.getBlockX(), location.getBlockY(), location.getBlockZ(), material, (byte) material.getData());
+	}
+
+	/**
+	 * Set whether to apply physics, turn off to write faster when neighbours do not need updating
+	 *
+	 * @param physics
+	 * @return this batch
+	 */
+	public BlockBatch setPhysics(boolean physics) {
+		this.physics = physics;
+
+		return this;
+	}
+
+	/**
+	 * Set how long each tick may write blocks, at least one block is written per tick
+	 *
+	 * @param time
+	 * @param unit
+	 * @return this batch
+	 */
+	public BlockBatch setTickBudget(long time, TimeUnit unit) {
+		Validate.isTrue(time > 0, "Tick budget must be positive");
+
+		this.tickBudget = unit.toNanos(time);
+
+		return this;
+	}
+
+	/**
+	 * Get how many blocks were added
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Start writing the blocks, starting this tick
+	 *
+	 * @return a future completed on the main thread once all blocks are written
+	 */
+	public CompletableFuture<Void> apply() {
+		Validate.isTrue(!applied, "Batch was applied already");
+		applied = true;
+
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+		final Writer writer = new Writer(future);
+
+		if (!writer.tick()) {
+			writer.task = RemainUtils.runTimer(1, 1, writer::run);
+
+			// Our plugin is disabled so the timer ran once right away, finish the rest now
+			if (writer.task == null)
+				writer.finish();
+		}
+
+		return future;
+	}
+
+	/**
+	 * Writes the chunks over several ticks
+	 */
+	private final class Writer {
+
+		private final CompletableFuture<Void> future;
+		private final Iterator<List<Entry>> chunkIterator = chunks.values().iterator();
+
+		/**
+		 * The chunk being written and the index of the next block in it
+		 */
+		private List<Entry> chunk;
+		private int index;
+
+		private BukkitTask task;
+
+		private Writer(CompletableFuture<Void> future) {
+			this.future = future;
+		}
+
+		private void run() {
+			if (tick() && task != null) {
+				task.cancel();
+				task = null;
+			}
+		}
+
+		// Writes all remaining blocks regardless of the budget
+		private void finish() {
+			while (!tick()) {
+			}
+		}
+
+		// Writes blocks until the budget is used up, returns true when all are written
+		private boolean tick() {
+			if (future.isDone())
+				return true;
+
+			final long deadline = System.nanoTime() + tickBudget;
+			int written = 0;
+
+			try {
+				while (true) {
+					if (chunk == null || index >= chunk.size()) {
+						if (!chunkIterator.hasNext()) {
+							future.complete(null);
+
+							return true;
+						}
+
+						chunk = chunkIterator.next();
+						index = 0;
+					}
+
+					final Entry first = chunk.get(0);
+					final Chunk bukkitChunk = world.getChunkAt(first.x >> 4, first.z >> 4);
+
+					while (index < chunk.size()) {
+						final Entry entry = chunk.get(index++);
+
+						BlockWriter.write(bukkitChunk.getBlock(entry.x & 15, entry.y, entry.z & 15), entry.state, physics);
+
+						if (++written % BUDGET_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline)
+							return false;
+					}
+				}
+
+			} catch (final Throwable t) {
+				future.completeExceptionally(t);
+
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * A block to write
+	 */
+	private static final class Entry {
+
+		private final int x;
+		private final int y;
+		private final int z;
+		private final Object state;
+
+		private Entry(int x, int y, int z, Object state) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.state = state;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package org.mineacademy.remain.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.mineacademy.remain.util.MinecraftVersion.V;
+
+/**
+ * Writes block types and data with the methods of the server resolved once,
+ * see {@link BlockBatch} to write many blocks at once
+ *
+ * A material and data pair is resolved to a block state once and cached: the
+ * BlockData on 1.13+, the legacy type id and data on older versions.
+ */
+public final class BlockWriter {
+
+	/**
+	 * Whether blocks are written with BlockData
+	 */
+	private static final boolean MODERN = MinecraftVersion.atLeast(V.v1_13);
+
+	/**
+	 * The resolved block states by material and data
+	 */
+	private static final Map<Integer, Object> states = new ConcurrentHashMap<>();
+
+	/**
+	 * Block#setTypeIdAndData(int, byte, boolean) as (Block, int, byte, boolean)void on legacy servers
+	 */
+	private static MethodHandle setTypeIdAndData;
+
+	/**
+	 * Block#setData(byte, boolean) as (Block, byte, boolean)void on legacy servers
+	 */
+	private static MethodHandle setData;
+
+	// Static access
+	private BlockWriter() {
+	}
+
+	static {
+		if (!MODERN)
+			try {
+				final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+				setTypeIdAndData = lookup.unreflect(Block.class.getMethod("setTypeIdAndData", int.class, byte.class, boolean.class)).asType(MethodType.methodType(void.class, Block.class, int.class, byte.class, boolean.class));
+				setData = lookup.unreflect(Block.class.getMethod("setData", byte.class, boolean.class)).asType(MethodType.methodType(void.class, Block.class, byte.class, boolean.class));
+
+			} catch (final ReflectiveOperationException ex) {
+				ex.printStackTrace();
+			}
+	}
+
+	/**
+	 * Get the cached block state for the material and data, to be passed to {@link #write(Block, Object, boolean)}
+	 *
+	 * @param material
+	 * @param data
+	 * @return
+	 */
+	public static Object getState(Material material, byte data) {
+		return states.computeIfAbsent(material.ordinal() << 8 | data & 0xFF, key -> MODERN ? Bukkit.getUnsafe().fromLegacy(material, data) : new LegacyState(material.getId(), data));
+	}
+
+	/**
+	 * Set the type and data of the block
+	 *
+	 * @param block
+	 * @param material
+	 * @param data
+	 * @param physics whether to apply physics
+	 */
+	public static void write(Block block, Material material, byte data, boolean physics) {
+		write(block, getState(material, data), physics);
+	}
+
+	/**
+	 * Set the block to a state from {@link #getState(Material, byte)}
+	 *
+	 * @param block
+	 * @param state
+	 * @param physics whether to apply physics
+	 */
+	public static void write(Block block, Object state, boolean physics) {
+		if (MODERN) {
+			block.setBlockData((BlockData) state, physics);
+
+			return;
+		}
+
+		final LegacyState legacy = (LegacyState) state;
+
+		try {
+			setTypeIdAndData.invokeExact(block, legacy.id, legacy.data, physics);
+
+		} catch (final Throwable t) {
+			throw new ReflectionUtil.ReflectionException("Could not set " + block + " to " + legacy.id + ":" + legacy.data, t);
+		}
+	}
+
+	/**
+	 * Set only the data of the block, keeping its type
+	 *
+	 * @param block
+	 * @param data
+	 * @param physics whether to apply physics
+	 */
+	public static void writeData(Block block, byte data, boolean physics) {
+		if (MODERN) {
+			block.setBlockData((BlockData) getState(block.getType(), data), physics);
+
+			return;
+		}
+
+		try {
+			setData.invokeExact(block, data, physics);
+
+		} catch (final Throwable t) {
+			throw new ReflectionUtil.ReflectionException("Could not set the data of " + block + " to " + data, t);
+		}
+	}
+
+	/**
+	 * A block type id and data on legacy servers
+	 */
+	private static final class LegacyState {
+
+		private final int id;
+		private final byte data;
+
+		private LegacyState(int id, byte data) {
+			this.id = id;
+			this.data = data;
+		}
+	}
+}
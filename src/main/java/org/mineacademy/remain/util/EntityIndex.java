@@ -0,0 +1,277 @@
+package org.mineacademy.remain.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.entity.ProjectileLaunchEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.vehicle.VehicleCreateEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.mineacademy.remain.Remain;
+
+/**
+ * Finds entities by their unique id without going through all entities,
+ * see {@link Remain#getEntity(UUID)}
+ *
+ * Each world has a map of its entities, kept up to date from spawn, death,
+ * join, quit and chunk events. Not every way an entity appears fires an event,
+ * so when an entity is not found we scan the worlds like before, stopping at
+ * and indexing the entity we look for. Entities are held weakly and are only
+ * returned while they are valid.
+ */
+public final class EntityIndex implements Listener {
+
+	/**
+	 * The indexed entities of each world, by the world's and the entity's unique id
+	 */
+	private static final Map<UUID, Map<UUID, EntityReference>> worlds = new ConcurrentHashMap<>();
+
+	/**
+	 * Entities that were garbage collected, so their entries can be removed
+	 */
+	private static final ReferenceQueue<Entity> collected = new ReferenceQueue<>();
+
+	/**
+	 * Lookups answered from the index
+	 */
+	private static final LongAdder hits = new LongAdder();
+
+	/**
+	 * Lookups that had to scan the worlds
+	 */
+	private static final LongAdder misses = new LongAdder();
+
+	/**
+	 * The singleton instance
+	 */
+	private static EntityIndex singleton = null;
+
+	// Singleton
+	private EntityIndex() {
+	}
+
+	// Start listening to events
+	static {
+		if (singleton == null && Remain.getPlugin().isEnabled()) {
+			singleton = new EntityIndex();
+
+			Bukkit.getPluginManager().registerEvents(singleton, Remain.getPlugin());
+		}
+	}
+
+	/**
+	 * Find a loaded entity by its unique id, only call from the main thread
+	 *
+	 * @param id
+	 * @return the entity, or null if not found
+	 */
+	public static Entity getEntity(UUID id) {
+		expungeCollected();
+
+		for (final Map<UUID, EntityReference> entities : worlds.values()) {
+			final EntityReference reference = entities.get(id);
+
+			if (reference == null)
+				continue;
+
+			final Entity entity = reference.get();
+
+			if (entity != null && entity.isValid()) {
+				hits.increment();
+
+				return entity;
+			}
+
+			entities.remove(id, reference);
+		}
+
+		misses.increment();
+
+		return scan(id);
+	}
+
+	// Goes through the entities like before until the one we look for, indexing only it
+	private static Entity scan(UUID id) {
+		for (final World world : Bukkit.getWorlds())
+			for (final Entity entity : world.getEntities())
+				if (entity.getUniqueId().equals(id)) {
+					index(entity);
+
+					return entity;
+				}
+
+		return null;
+	}
+
+	/**
+	 * Get how many entities are indexed
+	 *
+	 * @return
+	 */
+	public static int getSize() {
+		int size = 0;
+
+		for (final Map<UUID, EntityReference> entities : worlds.values())
+			size += entities.size();
+
+		return size;
+	}
+
+	/**
+	 * Get how many lookups were answered from the index
+	 *
+	 * @return
+	 */
+	public static long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Get how many lookups had to scan all entities
+	 *
+	 * @return
+	 */
+	public static long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Get the share of lookups answered from the index, from 0 to 1
+	 *
+	 * @return the hit rate, or 0 if nothing was looked up yet
+	 */
+	public static double getHitRate() {
+		final long hits = getHits();
+		final long total = hits + getMisses();
+
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Forget all indexed entities and reset the metrics
+	 */
+	public static void clear() {
+		worlds.clear();
+
+		hits.reset();
+		misses.reset();
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Maintaining the index
+	// ------------------------------------------------------------------------------------------
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onCreatureSpawn(CreatureSpawnEvent event) {
+		index(event.getEntity());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onItemSpawn(ItemSpawnEvent event) {
+		index(event.getEntity());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onProjectileLaunch(ProjectileLaunchEvent event) {
+		index(event.getEntity());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onVehicleCreate(VehicleCreateEvent event) {
+		index(event.getVehicle());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerJoin(PlayerJoinEvent event) {
+		index(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChunkLoad(ChunkLoadEvent event) {
+		for (final Entity entity : event.getChunk().getEntities())
+			index(entity);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onEntityDeath(EntityDeathEvent event) {
+		unindex(event.getEntity());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		unindex(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onChunkUnload(ChunkUnloadEvent event) {
+		for (final Entity entity : event.getChunk().getEntities())
+			unindex(entity);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onWorldUnload(WorldUnloadEvent event) {
+		worlds.remove(event.getWorld().getUID());
+	}
+
+	// Adds the entity to the map of its current world unless it is already there
+	private static void index(Entity entity) {
+		final UUID worldId = entity.getWorld().getUID();
+		final Map<UUID, EntityReference> entities = worlds.computeIfAbsent(worldId, key -> new ConcurrentHashMap<>());
+		final EntityReference reference = entities.get(entity.getUniqueId());
+
+		if (reference == null || reference.get() != entity)
+			entities.put(entity.getUniqueId(), new EntityReference(entity, worldId));
+	}
+
+	// Removes the entity from the map of its current world
+	private static void unindex(Entity entity) {
+		final Map<UUID, EntityReference> entities = worlds.get(entity.getWorld().getUID());
+
+		if (entities != null)
+			entities.remove(entity.getUniqueId());
+	}
+
+	// Removes entries of entities that no longer exist
+	private static void expungeCollected() {
+		EntityReference reference;
+
+		while ((reference = (EntityReference) collected.poll()) != null) {
+			final Map<UUID, EntityReference> entities = worlds.get(reference.worldId);
+
+			if (entities != null)
+				entities.remove(reference.entityId, reference);
+		}
+	}
+
+	/**
+	 * A weak reference to an indexed entity, remembering where it is stored
+	 */
+	private static final class EntityReference extends WeakReference<Entity> {
+
+		private final UUID entityId;
+		private final UUID worldId;
+
+		private EntityReference(Entity entity, UUID worldId) {
+			super(entity, collected);
+
+			this.entityId = entity.getUniqueId();
+			this.worldId = worldId;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package org.mineacademy.remain.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * Finds entities within a sphere, box or cylinder by only visiting the loaded
+ * chunks the shape overlaps, instead of all entities in the world
+ *
+ * Entities are matched by their location, distances are compared squared.
+ * Each query has a visitor variant that does not create a result list, and
+ * all take an optional entity type to filter by, null to match any entity.
+ *
+ * Only use from the main thread.
+ */
+public final class EntityQuery {
+
+	/**
+	 * How many chunks an area may span before we compare it with the amount of loaded chunks
+	 */
+	private static final int LARGE_SPAN = 256;
+
+	// Static access
+	private EntityQuery() {
+	}
+
+	/**
+	 * Get entities within the given distance from the center
+	 *
+	 * @param center
+	 * @param radius
+	 * @param type the entity type such as Player.class, or null for all
+	 * @return
+	 */
+	public static <T extends Entity> List<T> getInSphere(Location center, double radius, Class<T> type) {
+		final List<T> found = new ArrayList<>();
+
+		forEachInSphere(center, radius, type, found::add);
+		return found;
+	}
+
+	/**
+	 * Visit entities within the given distance from the center
+	 *
+	 * @param center
+	 * @param radius
+	 * @param type the entity type such as Player.class, or null for all
+	 * @param visitor
+	 */
+	public static <T extends Entity> void forEachInSphere(Location center, double radius, Class<T> type, Consumer<? super T> visitor) {
+		Validate.isTrue(radius >= 0, "Radius cannot be negative: " + radius);
+
+		final double x = center.getX(), y = center.getY(), z = center.getZ();
+		final double radiusSquared = radius * radius;
+
+		visit(center.getWorld(), x - radius, z - radius, x + radius, z + radius, type, visitor, (entityX, entityY, entityZ) -> {
+			final double dx = entityX - x, dy = entityY - y, dz = entityZ - z;
+
+			return dx * dx + dy * dy + dz * dz <= radiusSquared;
+		});
+	}
+
+	/**
+	 * Get entities within the box spanned by the two corners, inclusive
+	 *
+	 * @param first
+	 * @param second
+	 * @param type the entity type such as Player.class, or null for all
+	 * @return
+	 */
+	public static <T extends Entity> List<T> getInBox(Location first, Location second, Class<T> type) {
+		final List<T> found = new ArrayList<>();
+
+		forEachInBox(first, second, type, found::add);
+		return found;
+	}
+
+	/**
+	 * Visit entities within the box spanned by the two corners, inclusive
+	 *
+	 * @param first
+	 * @param second
+	 * @param type the entity type such as Player.class, or null for all
+	 * @param visitor
+	 */
+	public static <T extends Entity> void forEachInBox(Location first, Location second, Class<T> type, Consumer<? super T> visitor) {
+		Validate.isTrue(first.getWorld().equals(second.getWorld()), "Box corners must be in the same world!");
+
+		final double minX = Math.min(first.getX(), second.getX()), maxX = Math.max(first.getX(), second.getX());
+		final double minY = Math.min(first.getY(), second.getY()), maxY = Math.max(first.getY(), second.getY());
+		final double minZ = Math.min(first.getZ(), second.getZ()), maxZ = Math.max(first.getZ(), second.getZ());
+
+		visit(first.getWorld(), minX, minZ, maxX, maxZ, type, visitor, (entityX, entityY, entityZ) -> entityX >= minX && entityX <= maxX && entityY >= minY && entityY <= maxY && entityZ >= minZ && entityZ <= maxZ);
+	}
+
+	/**
+	 * Get entities within an upright cylinder standing on the base location
+	 *
+	 * @param base the center of the bottom face
+	 * @param radius
+	 * @param height how far up from the base the cylinder reaches
+	 * @param type the entity type such as Player.class, or null for all
+	 * @return
+	 */
+	public static <T extends Entity> List<T> getInCylinder(Location base, double radius, double height, Class<T> type) {
+		final List<T> found = new ArrayList<>();
+
+		forEachInCylinder(base, radius, height, type, found::add);
+		return found;
+	}
+
+	/**
+	 * Visit entities within an upright cylinder standing on the base location
+	 *
+	 * @param base the center of the bottom face
+	 * @param radius
+	 * @param height how far up from the base the cylinder reaches
+	 * @param type the entity type such as Player.class, or null for all
+	 * @param visitor
+	 */
+	public static <T extends Entity> void forEachInCylinder(Location base, double radius, double height, Class<T> type, Consumer<? super T> visitor) {
+		Validate.isTrue(radius >= 0 && height >= 0, "Radius and height cannot be negative: " + radius + ", " + height);
+
+		final double x = base.getX(), y = base.getY(), z = base.getZ();
+		final double radiusSquared = radius * radius;
+
+		visit(base.getWorld(), x - radius, z - radius, x + radius, z + radius, type, visitor, (entityX, entityY, entityZ) -> {
+			final double dx = entityX - x, dz = entityZ - z;
+
+			return entityY >= y && entityY <= y + height && dx * dx + dz * dz <= radiusSquared;
+		});
+	}
+
+	// Tests entities in loaded chunks overlapping the XZ bounds and passes the matching ones to the visitor
+	private static <T extends Entity> void visit(World world, double minX, double minZ, double maxX, double maxZ, Class<T> type, Consumer<? super T> visitor, Shape shape) {
+		final int minChunkX = (int) Math.floor(minX) >> 4, maxChunkX = (int) Math.floor(maxX) >> 4;
+		final int minChunkZ = (int) Math.floor(minZ) >> 4, maxChunkZ = (int) Math.floor(maxZ) >> 4;
+		final long span = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+		// Reused for every entity instead of creating a location each time
+		final Location location = new Location(world, 0, 0, 0);
+
+		// For huge areas going through the loaded chunks is cheaper than asking for each chunk in the area
+		if (span > LARGE_SPAN) {
+			final Chunk[] loadedChunks = world.getLoadedChunks();
+
+			if (span > loadedChunks.length) {
+				for (final Chunk chunk : loadedChunks)
+					if (chunk.getX() >= minChunkX && chunk.getX() <= maxChunkX && chunk.getZ() >= minChunkZ && chunk.getZ() <= maxChunkZ)
+						visitChunk(chunk, location, type, visitor, shape);
+
+				return;
+			}
+		}
+
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++)
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++)
+				if (world.isChunkLoaded(chunkX, chunkZ))
+					visitChunk(world.getChunkAt(chunkX, chunkZ), location, type, visitor, shape);
+	}
+
+	// Tests the entities of one chunk
+	@SuppressWarnings("unchecked")
+	private static <T extends Entity> void visitChunk(Chunk chunk, Location location, Class<T> type, Consumer<? super T> visitor, Shape shape) {
+		for (final Entity entity : chunk.getEntities()) {
+			if (type != null && !type.isInstance(entity))
+				continue;
+
+			entity.getLocation(location);
+
+			if (shape.contains(location.getX(), location.getY(), location.getZ()))
+				visitor.accept(type != null ? type.cast(entity) : (T) entity);
+		}
+	}
+
+	/**
+	 * Tests whether a point is inside a shape
+	 */
+	private interface Shape {
+		boolean contains(double x, double y, double z);
+	}
+}
@@ -0,0 +1,297 @@
+package org.mineacademy.remain.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.mineacademy.remain.Remain;
+import org.mineacademy.remain.nbt.NBTItem;
+import org.mineacademy.remain.util.MinecraftVersion.V;
+
+/**
+ * Represents the parts of an item that {@link RemainUtils#isSimilar(ItemStack, ItemStack)}
+ * compares, reduced to a few numbers so most different items are told apart quickly
+ *
+ * Fingerprints are cached by the object holding the item's data: the server item behind
+ * a CraftItemStack, so every mirror of the same inventory slot shares one entry, or the
+ * ItemStack itself otherwise. Setting the meta of an item always replaces its tag or meta
+ * object, so a cached fingerprint is used while its type, data and that object are unchanged,
+ * which is checked without copying the meta.
+ */
+public final class ItemFingerprint {
+
+	/**
+	 * Is Minecraft older than 1.13? Storing here for best performance.
+	 */
+	private static final boolean LEGACY_MATERIALS = MinecraftVersion.olderThan(V.v1_13);
+
+	/**
+	 * The cached fingerprints by item instance, items are held weakly
+	 */
+	private static final Map<IdentityKey, ItemFingerprint> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Items that were garbage collected, so their cache entries can be removed
+	 */
+	private static final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	/**
+	 * CraftItemStack, or null if its handle could not be accessed
+	 */
+	private static Class<?> craftItemClass;
+
+	/**
+	 * CraftItemStack#handle as (ItemStack)Object
+	 */
+	private static MethodHandle getHandle;
+
+	/**
+	 * The server ItemStack#getTag() as (Object)Object
+	 */
+	private static MethodHandle getTag;
+
+	/**
+	 * ItemStack#meta as (ItemStack)Object, or null if the cache is not used
+	 */
+	private static MethodHandle getMeta;
+
+	/**
+	 * The item type
+	 */
+	private final Material type;
+
+	/**
+	 * The item data, or 0 if data is not compared
+	 */
+	private final int data;
+
+	/**
+	 * Whether the item has meta
+	 */
+	private final boolean hasMeta;
+
+	/**
+	 * The tag or meta object the item had, only used to tell whether the item changed
+	 */
+	private final WeakReference<Object> state;
+
+	/**
+	 * The hash of the lowercase display name without colors
+	 */
+	private final long nameHash;
+
+	/**
+	 * The hash of the lore lines without colors
+	 */
+	private final long loreHash;
+
+	/**
+	 * The hash of the plugin's NBT tags
+	 */
+	private final long nbtHash;
+
+	// Find the fields holding the item's data, without them fingerprints are not cached
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			final Class<?> craftItem = ReflectionUtil.getOFCClass("inventory.CraftItemStack");
+			final Field handle = craftItem.getDeclaredField("handle");
+			final Field meta = ItemStack.class.getDeclaredField("meta");
+
+			handle.setAccessible(true);
+			meta.setAccessible(true);
+
+			getHandle = lookup.unreflectGetter(handle).asType(MethodType.methodType(Object.class, ItemStack.class));
+			getTag = lookup.unreflect(handle.getType().getMethod("getTag")).asType(MethodType.methodType(Object.class, Object.class));
+			getMeta = lookup.unreflectGetter(meta).asType(MethodType.methodType(Object.class, ItemStack.class));
+			craftItemClass = craftItem;
+
+		} catch (final ReflectiveOperationException | RuntimeException ex) {
+			ex.printStackTrace();
+
+			getMeta = null;
+		}
+	}
+
+	private ItemFingerprint(ItemStack item, Object state) {
+		this.type = item.getType();
+		this.data = getComparedData(item);
+		this.hasMeta = item.hasItemMeta();
+		this.state = state != null ? new WeakReference<>(state) : null;
+
+		if (hasMeta) {
+			final ItemMeta meta = item.getItemMeta();
+
+			this.nameHash = hash(ChatColor.stripColor(RemainUtils.getOrEmpty(meta.getDisplayName()).toLowerCase()));
+			this.loreHash = hashLore(meta.getLore());
+
+		} else {
+			this.nameHash = hash("");
+			this.loreHash = hashLore(null);
+		}
+
+		final NBTItem nbt = new NBTItem(item);
+		final String pluginName = Remain.getPlugin().getName();
+
+		this.nbtHash = mix(hashTag(nbt, pluginName), hashTag(nbt, pluginName + "_Item"));
+	}
+
+	/**
+	 * Return true if both items have the same type, data, name, lore and plugin tags
+	 *
+	 * These are compared by 64-bit hashes, so different items match only in the
+	 * negligible case of a hash collision.
+	 *
+	 * @param other
+	 * @return
+	 */
+	public boolean matches(ItemFingerprint other) {
+		return type == other.type && data == other.data && hasMeta == other.hasMeta
+				&& nameHash == other.nameHash && loreHash == other.loreHash && nbtHash == other.nbtHash;
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Cache
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Get the fingerprint of the item, computing it again only when the item changed
+	 *
+	 * @param item
+	 * @return
+	 */
+	public static ItemFingerprint of(ItemStack item) {
+		if (getMeta == null)
+			return new ItemFingerprint(item, null);
+
+		expungeCollected();
+
+		final Object owner;
+		final Object state;
+
+		try {
+			final Object handle = craftItemClass.isInstance(item) ? (Object) getHandle.invokeExact(item) : null;
+
+			owner = handle != null ? handle : item;
+			state = handle != null ? (Object) getTag.invokeExact(handle) : (Object) getMeta.invokeExact(item);
+
+		} catch (final Throwable t) {
+			throw new ReflectionUtil.ReflectionException("Could not read the data of " + item, t);
+		}
+
+		final ItemFingerprint cached = cache.get(new IdentityKey(owner, null));
+
+		if (cached != null && cached.isUpToDate(item, state))
+			return cached;
+
+		final ItemFingerprint fingerprint = new ItemFingerprint(item, state);
+
+		cache.put(new IdentityKey(owner, collected), fingerprint);
+		return fingerprint;
+	}
+
+	// Returns true if the item still has the type, data and the very tag or meta object this fingerprint was made from
+	private boolean isUpToDate(ItemStack item, Object currentState) {
+		if (type != item.getType() || data != getComparedData(item))
+			return false;
+
+		return state == null ? currentState == null : currentState != null && state.get() == currentState;
+	}
+
+	// Removes entries of items that no longer exist
+	private static void expungeCollected() {
+		Object reference;
+
+		while ((reference = collected.poll()) != null)
+			cache.remove(reference);
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Hashing
+	// ------------------------------------------------------------------------------------------
+
+	// Returns the data value that isSimilar compares, bows ignore their durability
+	private static int getComparedData(ItemStack item) {
+		return LEGACY_MATERIALS && item.getType() != Material.BOW ? item.getData().getData() : 0;
+	}
+
+	// Hashes the lore the same way RemainUtils#listEquals compares it, missing lore differs from empty lore
+	private static long hashLore(List<String> lore) {
+		if (lore == null)
+			return 0;
+
+		long hash = mix(1, lore.size());
+
+		for (final String line : lore)
+			hash = mix(hash, line == null ? 0 : hash(ChatColor.stripColor(line)));
+
+		return hash;
+	}
+
+	// Hashes the string tag so that a missing tag differs from an empty one
+	private static long hashTag(NBTItem nbt, String key) {
+		return nbt.hasKey(key) ? mix(1, hash(nbt.getString(key))) : 0;
+	}
+
+	// 64-bit FNV-1a, collisions are negligible compared to the 32-bit String#hashCode
+	private static long hash(String string) {
+		long hash = 0xCBF29CE484222325L;
+
+		for (int i = 0; i < string.length(); i++) {
+			hash ^= string.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+
+		return hash;
+	}
+
+	// Combines two hashes, order dependent
+	private static long mix(long first, long second) {
+		return (first ^ second * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L + second;
+	}
+
+	/**
+	 * A weak reference comparing items by their identity, not by {@link ItemStack#equals(Object)}
+	 */
+	private static final class IdentityKey extends WeakReference<Object> {
+
+		/**
+		 * The identity hash of the item, kept after it is collected
+		 */
+		private final int hash;
+
+		private IdentityKey(Object item, ReferenceQueue<Object> queue) {
+			super(item, queue);
+
+			this.hash = System.identityHashCode(item);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof IdentityKey))
+				return false;
+
+			final Object item = get();
+
+			return item != null && item == ((IdentityKey) obj).get();
+		}
+	}
+}
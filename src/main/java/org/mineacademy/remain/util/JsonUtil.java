@@ -0,0 +1,236 @@
+package org.mineacademy.remain.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.mineacademy.remain.nbt.TagCompound;
+import org.mineacademy.remain.nbt.TagList;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
+
+/**
+ * Holds the one Gson instance Remain uses, Gson is thread safe so it is shared
+ * by all threads instead of creating a new one for each conversion
+ *
+ * Chat components and {@link TagCompound}/{@link TagList} can be converted
+ * directly, chat components only if the BungeeCord chat library is present.
+ */
+public final class JsonUtil {
+
+	/**
+	 * The shared Gson instance
+	 */
+	private static final Gson gson = makeGson();
+
+	// Static access
+	private JsonUtil() {
+	}
+
+	// Creates Gson with our type adapters
+	private static Gson makeGson() {
+		final GsonBuilder builder = new GsonBuilder();
+
+		builder.registerTypeAdapter(TagCompound.class, new TagAdapter());
+		builder.registerTypeAdapter(TagList.class, new TagAdapter());
+
+		try {
+			builder.registerTypeHierarchyAdapter(BaseComponent.class, new ComponentAdapter());
+
+		} catch (final NoClassDefFoundError err) {
+			// Chat library not present (Minecraft 1.7.10 and older without Spigot)
+		}
+
+		return builder.create();
+	}
+
+	/**
+	 * Get the shared Gson instance
+	 *
+	 * @return
+	 */
+	public static Gson getGson() {
+		return gson;
+	}
+
+	/**
+	 * Convert the object to JSON
+	 *
+	 * @param object
+	 * @return
+	 */
+	public static String toJson(Object object) {
+		return gson.toJson(object);
+	}
+
+	/**
+	 * Convert the JSON to an object of the given type
+	 *
+	 * @param json
+	 * @param type
+	 * @return
+	 * @throws JsonParseException if the JSON is malformed or does not match the type
+	 */
+	public static <T> T fromJson(String json, Class<T> type) throws JsonParseException {
+		return type.cast(gson.fromJson(json, type));
+	}
+
+	/**
+	 * Quote the text as a JSON string, writing it directly without going through Gson's type adapters
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static String quote(String text) {
+		final StringWriter writer = new StringWriter(text.length() + 2);
+
+		try (JsonWriter json = new JsonWriter(writer)) {
+			json.setLenient(true);
+			json.value(text);
+
+		} catch (final IOException ex) {
+			// Writing to a string never fails
+			throw new RuntimeException(ex);
+		}
+
+		return writer.toString();
+	}
+
+	/**
+	 * Converts chat components using BungeeCord's own serializer, so they are written in the format Minecraft reads
+	 */
+	private static final class ComponentAdapter implements JsonSerializer<BaseComponent>, JsonDeserializer<BaseComponent> {
+
+		@Override
+		public JsonElement serialize(BaseComponent component, Type type, JsonSerializationContext context) {
+			return new JsonParser().parse(ComponentSerializer.toString(component));
+		}
+
+		@Override
+		public BaseComponent deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
+			final BaseComponent[] components = ComponentSerializer.parse(json.toString());
+
+			return components.length == 1 ? components[0] : new TextComponent(components);
+		}
+	}
+
+	/**
+	 * Converts compound and list tags. Numbers lose their exact tag type, when read back
+	 * whole numbers become Integer or Long, decimals Double and booleans Byte.
+	 */
+	private static final class TagAdapter implements JsonSerializer<Object>, JsonDeserializer<Object> {
+
+		@Override
+		public JsonElement serialize(Object tag, Type type, JsonSerializationContext context) {
+			return toElement(tag);
+		}
+
+		@Override
+		public Object deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
+			final Object tag = toTag(json);
+
+			if (!((Class<?>) type).isInstance(tag))
+				throw new JsonParseException("Expected " + ((Class<?>) type).getSimpleName() + ", got " + json);
+
+			return tag;
+		}
+
+		// Converts a tag value to JSON
+		private static JsonElement toElement(Object value) {
+			if (value instanceof TagCompound) {
+				final TagCompound compound = (TagCompound) value;
+				final JsonObject object = new JsonObject();
+
+				for (final String key : compound.getKeys())
+					object.add(key, toElement(compound.get(key)));
+
+				return object;
+			}
+
+			if (value instanceof TagList) {
+				final JsonArray array = new JsonArray();
+
+				for (final Object element : ((TagList) value).getElements())
+					array.add(toElement(element));
+
+				return array;
+			}
+
+			if (value.getClass().isArray()) {
+				final JsonArray array = new JsonArray();
+
+				for (int i = 0; i < Array.getLength(value); i++)
+					array.add(new JsonPrimitive((Number) Array.get(value, i)));
+
+				return array;
+			}
+
+			return value instanceof Number ? new JsonPrimitive((Number) value) : new JsonPrimitive(value.toString());
+		}
+
+		// Converts JSON to a tag value
+		private static Object toTag(JsonElement json) {
+			if (json.isJsonObject()) {
+				final TagCompound compound = new TagCompound();
+
+				for (final Map.Entry<String, JsonElement> entry : json.getAsJsonObject().entrySet())
+					compound.put(entry.getKey(), toTag(entry.getValue()));
+
+				return compound;
+			}
+
+			if (json.isJsonArray()) {
+				final TagList list = new TagList();
+
+				try {
+					for (final JsonElement element : json.getAsJsonArray())
+						list.add(toTag(element));
+
+				} catch (final IllegalArgumentException ex) {
+					throw new JsonParseException("List elements must have the same type: " + json, ex);
+				}
+
+				return list;
+			}
+
+			if (json.isJsonNull())
+				throw new JsonParseException("Tags cannot be null");
+
+			final JsonPrimitive primitive = json.getAsJsonPrimitive();
+
+			if (primitive.isBoolean())
+				return (byte) (primitive.getAsBoolean() ? 1 : 0);
+
+			if (primitive.isNumber()) {
+				final String number = primitive.getAsString();
+
+				if (number.indexOf('.') != -1 || number.indexOf('e') != -1 || number.indexOf('E') != -1)
+					return primitive.getAsDouble();
+
+				final long value = primitive.getAsLong();
+
+				return value == (int) value ? (Object) (int) value : (Object) value;
+			}
+
+			return primitive.getAsString();
+		}
+	}
+}
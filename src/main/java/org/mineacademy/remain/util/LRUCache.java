@@ -0,0 +1,176 @@
+package org.mineacademy.remain.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A size-bounded cache evicting the least recently used entries, safe to use from any thread
+ *
+ * Entries are spread over several independently locked segments, each with its
+ * own share of the capacity, so threads rarely wait for each other. Eviction is
+ * therefore least recently used per segment.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class LRUCache<K, V> {
+
+	/**
+	 * How many segments we split the cache into
+	 */
+	private static final int SEGMENTS = 8;
+
+	/**
+	 * The segments, each one an access ordered map
+	 */
+	private final Segment<K, V>[] segments;
+
+	/**
+	 * How many lookups found a value
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * How many lookups found nothing
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Create a new cache holding at most the given amount of entries
+	 *
+	 * @param capacity
+	 */
+	@SuppressWarnings("unchecked")
+	public LRUCache(int capacity) {
+		Validate.isTrue(capacity >= SEGMENTS, "Cache capacity must be at least " + SEGMENTS);
+
+		this.segments = new Segment[SEGMENTS];
+
+		for (int i = 0; i < SEGMENTS; i++)
+			segments[i] = new Segment<>(capacity / SEGMENTS);
+	}
+
+	/**
+	 * Get the cached value, marking it as recently used
+	 *
+	 * @param key
+	 * @return the value, or null if not cached
+	 */
+	public V get(K key) {
+		final Segment<K, V> segment = segmentFor(key);
+		final V value;
+
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+
+		if (value != null)
+			hits.increment();
+		else
+			misses.increment();
+
+		return value;
+	}
+
+	/**
+	 * Cache the value, evicting the least recently used entry if the segment is full
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(K key, V value) {
+		Validate.notNull(value, "Cannot cache null values");
+
+		final Segment<K, V> segment = segmentFor(key);
+
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+	}
+
+	/**
+	 * Remove all entries and reset the counters
+	 */
+	public void clear() {
+		for (final Segment<K, V> segment : segments)
+			synchronized (segment) {
+				segment.clear();
+			}
+
+		hits.reset();
+		misses.reset();
+	}
+
+	/**
+	 * Get how many entries are cached
+	 *
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+
+		for (final Segment<K, V> segment : segments)
+			synchronized (segment) {
+				size += segment.size();
+			}
+
+		return size;
+	}
+
+	/**
+	 * Get how many lookups found a value
+	 *
+	 * @return
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Get how many lookups found nothing
+	 *
+	 * @return
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	// Picks the segment by the spread key hash
+	private Segment<K, V> segmentFor(K key) {
+		final int hash = key.hashCode();
+
+		return segments[(hash ^ hash >>> 16) & SEGMENTS - 1];
+	}
+
+	@Override
+	public String toString() {
+		return "LRUCache{size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + "}";
+	}
+
+	/**
+	 * An access ordered map removing its eldest entry when full
+	 */
+	private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The maximum entries in this segment
+		 */
+		private final int capacity;
+
+		private Segment(int capacity) {
+			super(16, 0.75F, true);
+
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > capacity;
+		}
+	}
+}
@@ -1,31 +1,25 @@
 package org.mineacademy.remain.util;
 
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import lombok.RequiredArgsConstructor;
 
 /**
  * Utility class for connecting to Mojang servers to get the players name from a given UUID
+ *
+ * @deprecated blocks the calling thread, use {@link NameResolver#resolve(UUID)} instead
  */
+@Deprecated
 @RequiredArgsConstructor
 public class NameFetcher implements Callable<String> {
 
 	/**
-	 * The URL to connect to
-	 */
-	private static final String PROFILE_URL = "https://sessionserver.mojang.com/session/minecraft/profile/";
-
-	/**
-	 * The JSON parser library
+	 * How long to wait for the name in seconds
 	 */
-	private final JSONParser jsonParser = new JSONParser();
+	private static final int TIMEOUT = 15;
 
 	/**
 	 * The UUID to convert to name
@@ -33,26 +27,21 @@ public class NameFetcher implements Callable<String> {
 	private final UUID uuid;
 
 	/**
-	 * Attempts to connect to Mojangs servers to retrieve the current player username from his unique id
+	 * Waits for {@link NameResolver} to resolve the current player username from his unique id
 	 *
-	 * Runs on the main thread
+	 * Blocks the calling thread
+	 *
+	 * @return the name, or an empty string if no such player exists
 	 */
 	@Override
 	public String call() throws Exception {
+		try {
+			final String name = NameResolver.resolve(uuid).get(TIMEOUT, TimeUnit.SECONDS);
 
-		final HttpURLConnection connection = (HttpURLConnection) new URL(PROFILE_URL + uuid.toString().replace("-", "")).openConnection();
-		final JSONObject response = (JSONObject) jsonParser.parse(new InputStreamReader(connection.getInputStream()));
-		final String name = (String) response.get("name");
-
-		if (name == null)
-			return "";
-
-		final String cause = (String) response.get("cause");
-		final String errorMessage = (String) response.get("errorMessage");
-
-		if (cause != null && cause.length() > 0)
-			throw new IllegalStateException(errorMessage);
+			return name != null ? name : "";
 
-		return name;
+		} catch (final ExecutionException ex) {
+			throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+		}
 	}
 }
@@ -0,0 +1,425 @@
+package org.mineacademy.remain.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang.Validate;
+import org.mineacademy.remain.Remain;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Resolves player names from their unique ids in the background, replacing
+ * a blocking connection to Mojang on the calling thread
+ *
+ * Names are cached in memory for {@link #setTimeToLive(long, TimeUnit)} and saved
+ * to a file in the plugin's folder so they survive restarts. Unknown players and
+ * failed lookups are remembered for {@link #setMissTimeToLive(long, TimeUnit)} so
+ * we do not ask again right away. Concurrent lookups of the same unique id share one request. Where names come from is decided by
+ * the {@link ProfileSource}, Mojang's session server by default.
+ */
+public final class NameResolver {
+
+	/**
+	 * The file in the plugin's folder the cache is saved to
+	 */
+	private static final String CACHE_FILE = "name-cache.json";
+
+	/**
+	 * The executor doing lookups and file access, its threads stop when idle
+	 */
+	private static final ThreadPoolExecutor executor = makeExecutor();
+
+	/**
+	 * The cached names by unique id
+	 */
+	private static final Map<UUID, CachedName> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Unique ids with no player or a failed lookup, in memory only
+	 */
+	private static final Map<UUID, Miss> misses = new ConcurrentHashMap<>();
+
+	/**
+	 * Lookups in progress by unique id, so concurrent callers share them
+	 */
+	private static final Map<UUID, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Whether a save of the cache file is already queued
+	 */
+	private static final AtomicBoolean saveQueued = new AtomicBoolean();
+
+	/**
+	 * Completes once the cache file was read
+	 */
+	private static volatile CompletableFuture<Void> loaded;
+
+	/**
+	 * Where names come from
+	 */
+	private static volatile ProfileSource source = new MojangSource();
+
+	/**
+	 * How long a name stays cached in milliseconds
+	 */
+	private static volatile long timeToLive = TimeUnit.HOURS.toMillis(6);
+
+	/**
+	 * How long an unknown player or a failed lookup is remembered in milliseconds
+	 */
+	private static volatile long missTimeToLive = TimeUnit.MINUTES.toMillis(1);
+
+	// Static access
+	private NameResolver() {
+	}
+
+	// Creates the executor with daemon threads timing out after 30 seconds of inactivity
+	private static ThreadPoolExecutor makeExecutor() {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			final Thread thread = new Thread(runnable, "Remain Name Resolver");
+
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	/**
+	 * Resolve the current name of the player, never blocks
+	 *
+	 * @param id
+	 * @return a future completed on a background thread with the name, or null if no such player exists
+	 */
+	public static CompletableFuture<String> resolve(UUID id) {
+		final String cached = getCachedName(id);
+
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+
+		final Miss miss = misses.get(id);
+
+		if (miss != null && !miss.isExpired()) {
+			final CompletableFuture<String> future = new CompletableFuture<>();
+
+			if (miss.error != null)
+				future.completeExceptionally(miss.error);
+			else
+				future.complete(null);
+
+			return future;
+		}
+
+		final CompletableFuture<String> future = new CompletableFuture<>();
+		final CompletableFuture<String> running = pending.putIfAbsent(id, future);
+
+		if (running != null)
+			return running;
+
+		// Registered outside of the map so completing right away cannot update it from within its own operation
+		load().thenApplyAsync(loaded -> lookup(id), executor).whenComplete((name, error) -> {
+			pending.remove(id, future);
+
+			if (error != null)
+				future.completeExceptionally(error);
+			else
+				future.complete(name);
+		});
+
+		return future;
+	}
+
+	/**
+	 * Get the name if it is cached and not expired, never blocks
+	 *
+	 * @param id
+	 * @return the name, or null if not cached
+	 */
+	public static String getCachedName(UUID id) {
+		final CachedName cached = cache.get(id);
+
+		return cached != null && !cached.isExpired() ? cached.name : null;
+	}
+
+	// Checks the cache again since it may have been loaded meanwhile, then asks the source
+	private static String lookup(UUID id) {
+		final String cached = getCachedName(id);
+
+		if (cached != null)
+			return cached;
+
+		final String name;
+
+		try {
+			name = source.getName(id);
+
+		} catch (final Exception ex) {
+			final RuntimeException error = new RuntimeException("Failed to resolve the name of " + id, ex);
+
+			misses.put(id, new Miss(error, System.currentTimeMillis()));
+			throw error;
+		}
+
+		if (name != null) {
+			misses.remove(id);
+			cache.put(id, new CachedName(name, System.currentTimeMillis()));
+
+			queueSave();
+
+		} else
+			misses.put(id, new Miss(null, System.currentTimeMillis()));
+
+		return name;
+	}
+
+	/**
+	 * Set where names come from, such as a local stub for testing
+	 *
+	 * @param source
+	 */
+	public static void setSource(ProfileSource source) {
+		Validate.notNull(source, "Profile source cannot be null");
+
+		NameResolver.source = source;
+	}
+
+	/**
+	 * Set how long names stay cached
+	 *
+	 * @param time
+	 * @param unit
+	 */
+	public static void setTimeToLive(long time, TimeUnit unit) {
+		Validate.isTrue(time > 0, "Time to live must be positive");
+
+		timeToLive = unit.toMillis(time);
+	}
+
+	/**
+	 * Set how long unknown players and failed lookups are remembered before asking again
+	 *
+	 * @param time
+	 * @param unit
+	 */
+	public static void setMissTimeToLive(long time, TimeUnit unit) {
+		Validate.isTrue(time >= 0, "Miss time to live cannot be negative");
+
+		missTimeToLive = unit.toMillis(time);
+	}
+
+	/**
+	 * Forget all cached names, unknown players and failed lookups, the cache file is cleared as well
+	 */
+	public static void clear() {
+		cache.clear();
+		misses.clear();
+
+		queueSave();
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Cache file
+	// ------------------------------------------------------------------------------------------
+
+	// Reads the cache file once in the background, lookups wait for it
+	private static CompletableFuture<Void> load() {
+		CompletableFuture<Void> loaded = NameResolver.loaded;
+
+		if (loaded == null)
+			synchronized (NameResolver.class) {
+				if (NameResolver.loaded == null)
+					NameResolver.loaded = CompletableFuture.runAsync(NameResolver::readFile, executor);
+
+				loaded = NameResolver.loaded;
+			}
+
+		return loaded;
+	}
+
+	private static void readFile() {
+		final File file = getFile();
+
+		if (!file.exists())
+			return;
+
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			final JsonObject json = new JsonParser().parse(reader).getAsJsonObject();
+
+			for (final Map.Entry<String, JsonElement> entry : json.entrySet()) {
+				final JsonObject value = entry.getValue().getAsJsonObject();
+				final CachedName cached = new CachedName(value.get("name").getAsString(), value.get("time").getAsLong());
+
+				if (!cached.isExpired())
+					cache.putIfAbsent(UUID.fromString(entry.getKey()), cached);
+			}
+
+		} catch (final IOException | RuntimeException ex) {
+			RemainUtils.error("Failed to read cached player names from " + file, ex);
+		}
+	}
+
+	// Saves the cache in the background, several changes in a row are saved once
+	private static void queueSave() {
+		if (saveQueued.compareAndSet(false, true))
+			executor.execute(() -> {
+				saveQueued.set(false);
+
+				writeFile();
+			});
+	}
+
+	private static synchronized void writeFile() {
+		final File file = getFile();
+		final File temporary = new File(file.getParentFile(), CACHE_FILE + ".tmp");
+		final JsonObject json = new JsonObject();
+
+		for (final Map.Entry<UUID, CachedName> entry : cache.entrySet())
+			if (!entry.getValue().isExpired()) {
+				final JsonObject value = new JsonObject();
+
+				value.addProperty("name", entry.getValue().name);
+				value.addProperty("time", entry.getValue().time);
+
+				json.add(entry.getKey().toString(), value);
+			}
+
+		try {
+			file.getParentFile().mkdirs();
+
+			try (Writer writer = Files.newBufferedWriter(temporary.toPath(), StandardCharsets.UTF_8)) {
+				JsonUtil.getGson().toJson(json, writer);
+			}
+
+			// Replace the file at once so a crash never leaves half of it
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		} catch (final IOException ex) {
+			RemainUtils.error("Failed to save cached player names to " + file, ex);
+		}
+	}
+
+	private static File getFile() {
+		return new File(Remain.getPlugin().getDataFolder(), CACHE_FILE);
+	}
+
+	/**
+	 * A cached name with the time it was resolved
+	 */
+	private static final class CachedName {
+
+		private final String name;
+		private final long time;
+
+		private CachedName(String name, long time) {
+			this.name = name;
+			this.time = time;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() - time > timeToLive;
+		}
+	}
+
+	/**
+	 * An unknown player or a failed lookup with the time it happened
+	 */
+	private static final class Miss {
+
+		/**
+		 * The failure, or null if there is no such player
+		 */
+		private final Throwable error;
+		private final long time;
+
+		private Miss(Throwable error, long time) {
+			this.error = error;
+			this.time = time;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() - time > missTimeToLive;
+		}
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// Sources
+	// ------------------------------------------------------------------------------------------
+
+	/**
+	 * Provides player names, called from a background thread
+	 */
+	public interface ProfileSource {
+
+		/**
+		 * Get the current name of the player
+		 *
+		 * @param id
+		 * @return the name, or null if no such player exists
+		 * @throws Exception if the name could not be retrieved
+		 */
+		String getName(UUID id) throws Exception;
+	}
+
+	/**
+	 * Asks Mojang's session server
+	 */
+	private static final class MojangSource implements ProfileSource {
+
+		/**
+		 * The URL to connect to
+		 */
+		private static final String PROFILE_URL = "https://sessionserver.mojang.com/session/minecraft/profile/";
+
+		/**
+		 * How long to wait for connecting and reading
+		 */
+		private static final int TIMEOUT = 5000;
+
+		@Override
+		public String getName(UUID id) throws Exception {
+			final HttpURLConnection connection = (HttpURLConnection) new URL(PROFILE_URL + id.toString().replace("-", "")).openConnection();
+
+			connection.setConnectTimeout(TIMEOUT);
+			connection.setReadTimeout(TIMEOUT);
+
+			try {
+				// No content means there is no player with this id
+				if (connection.getResponseCode() == HttpURLConnection.HTTP_NO_CONTENT)
+					return null;
+
+				try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+					final JsonObject response = new JsonParser().parse(reader).getAsJsonObject();
+
+					if (response.has("errorMessage"))
+						throw new IllegalStateException(response.get("errorMessage").getAsString());
+
+					return response.has("name") ? response.get("name").getAsString() : null;
+				}
+
+			} finally {
+				connection.disconnect();
+			}
+		}
+	}
+}
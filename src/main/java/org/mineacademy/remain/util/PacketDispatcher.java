@@ -0,0 +1,202 @@
+package org.mineacademy.remain.util;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Writes cosmetic packets to the player's channel from a dedicated executor,
+ * see {@link ReflectionUtil#sendCosmeticPackets(Player, Object...)}
+ *
+ * Each player has an own bounded queue drained by at most one thread at a time,
+ * so packets arrive in the order they were queued. When a queue is full the
+ * oldest packet is dropped, a cosmetic packet that old is outdated anyways.
+ */
+final class PacketDispatcher {
+
+	/**
+	 * How many packets may wait for one player before the oldest are dropped
+	 */
+	static final int QUEUE_CAPACITY = 256;
+
+	/**
+	 * How many threads write packets at most
+	 */
+	private static final int THREADS = 2;
+
+	/**
+	 * The executor draining player queues, its threads stop when idle so nothing is left over on reload
+	 */
+	private static final ThreadPoolExecutor executor = makeExecutor();
+
+	/**
+	 * The waiting packets by the player's channel
+	 */
+	private static final Map<Object, PlayerQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * How many packets were dropped because a queue was full
+	 */
+	private static final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Whether cosmetic packets are sent through this dispatcher
+	 */
+	private static volatile boolean enabled;
+
+	// Static access
+	private PacketDispatcher() {
+	}
+
+	// Creates the executor with daemon threads timing out after 30 seconds of inactivity
+	private static ThreadPoolExecutor makeExecutor() {
+		final AtomicInteger count = new AtomicInteger();
+		final ThreadFactory factory = runnable -> {
+			final Thread thread = new Thread(runnable, "Remain Packet Dispatcher #" + count.incrementAndGet());
+
+			thread.setDaemon(true);
+			return thread;
+		};
+
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	/**
+	 * Enable or disable sending cosmetic packets off the main thread
+	 *
+	 * @param enabled
+	 */
+	static synchronized void setEnabled(boolean enabled) {
+		if (enabled && !PlayerConnections.isChannelSupported()) {
+			System.out.println("Async packet dispatch is not supported on your server software, packets will be sent on the main thread.");
+
+			return;
+		}
+
+		PacketDispatcher.enabled = enabled;
+	}
+
+	/**
+	 * Return true if cosmetic packets are sent off the main thread
+	 *
+	 * @return
+	 */
+	static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get how many packets were dropped because the player's queue was full
+	 *
+	 * @return
+	 */
+	static long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Queue the packets for the player
+	 *
+	 * @param player
+	 * @param packets
+	 * @return false if the player's channel was not found and packets must be sent the normal way
+	 */
+	static boolean dispatch(Player player, Object... packets) {
+		final Object channel = PlayerConnections.getChannel(player);
+
+		if (channel == null)
+			return false;
+
+		while (true) {
+			final PlayerQueue queue = queues.computeIfAbsent(channel, PlayerQueue::new);
+
+			synchronized (queue) {
+
+				// The queue was drained and removed meanwhile, take a new one
+				if (queue.retired)
+					continue;
+
+				for (final Object packet : packets) {
+					if (queue.packets.size() >= QUEUE_CAPACITY) {
+						queue.packets.poll();
+
+						dropped.increment();
+					}
+
+					queue.packets.add(packet);
+				}
+
+				if (!queue.scheduled) {
+					queue.scheduled = true;
+
+					executor.execute(queue);
+				}
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * The waiting packets of one player, drained by one thread at a time
+	 */
+	private static final class PlayerQueue implements Runnable {
+
+		/**
+		 * The Netty channel
+		 */
+		private final Object channel;
+
+		/**
+		 * The packets in the order they were queued
+		 */
+		private final ArrayDeque<Object> packets = new ArrayDeque<>();
+
+		/**
+		 * Whether a drain is already submitted to the executor
+		 */
+		private boolean scheduled;
+
+		/**
+		 * Whether this queue was removed from the map and must no longer be used
+		 */
+		private boolean retired;
+
+		private PlayerQueue(Object channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				final Object[] batch;
+
+				synchronized (this) {
+					if (packets.isEmpty()) {
+						scheduled = false;
+						retired = true;
+
+						queues.remove(channel, this);
+						return;
+					}
+
+					batch = packets.toArray();
+					packets.clear();
+				}
+
+				PlayerConnections.writeAndFlush(channel, batch);
+			}
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package org.mineacademy.remain.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerKickEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.mineacademy.remain.Remain;
+import org.mineacademy.remain.util.ReflectionUtil.ReflectionException;
+
+/**
+ * Caches the connection of each player and writes packets to it,
+ * see {@link ReflectionUtil#sendPacket(Player, Object)}
+ *
+ * When the Netty channel of the connection can be found, several packets are
+ * written to it and flushed once instead of flushing after every packet.
+ *
+ * Writing to the channel skips NetworkManager#sendPacket, which is safe here:
+ * a PlayerConnection only exists once the player is in the play protocol, which
+ * does not change again on the versions we support, so there is no protocol
+ * switch for the NetworkManager to make. Writes from the main thread are queued
+ * on the channel's event loop just like the NetworkManager's own, so the order
+ * of packets is kept.
+ *
+ * Connections are forgotten when their player quits or is kicked.
+ */
+final class PlayerConnections implements Listener {
+
+	/**
+	 * CraftPlayer#getHandle as (Player)Object
+	 */
+	private static MethodHandle getHandle;
+
+	/**
+	 * The EntityPlayer#playerConnection getter as (Object)Object
+	 */
+	private static MethodHandle getConnection;
+
+	/**
+	 * PlayerConnection#sendPacket as (Object, Object)void
+	 */
+	private static MethodHandle sendPacket;
+
+	/**
+	 * The getter of the Netty channel from the PlayerConnection as (Object)Object, or null if not found
+	 */
+	private static MethodHandle getChannel;
+
+	/**
+	 * Channel#write as (Object, Object)void
+	 */
+	private static MethodHandle channelWrite;
+
+	/**
+	 * Channel#flush as (Object)void
+	 */
+	private static MethodHandle channelFlush;
+
+	/**
+	 * The resolved connections by player unique id
+	 */
+	private static final Map<UUID, Connection> connections = new ConcurrentHashMap<>();
+
+	/**
+	 * Connections written to during the current tick and not flushed yet
+	 */
+	private static final Set<Connection> pendingFlush = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Whether packets are written without flushing and flushed once per tick
+	 */
+	private static volatile boolean batching;
+
+	/**
+	 * The task flushing {@link #pendingFlush} each tick, or null when not batching
+	 */
+	private static BukkitTask flushTask;
+
+	/**
+	 * The singleton instance, registered as a listener once our plugin is enabled
+	 */
+	private static volatile PlayerConnections singleton = null;
+
+	// Singleton
+	private PlayerConnections() {
+	}
+
+	static {
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		try {
+			getHandle = lookup.unreflect(ReflectionUtil.getOFCClass("entity.CraftPlayer").getMethod("getHandle")).asType(MethodType.methodType(Object.class, Player.class));
+			getConnection = lookup.unreflectGetter(ReflectionUtil.getNMSClass("EntityPlayer").getField("playerConnection")).asType(MethodType.methodType(Object.class, Object.class));
+			sendPacket = lookup.unreflect(ReflectionUtil.getNMSClass("PlayerConnection").getMethod("sendPacket", ReflectionUtil.getNMSClass("Packet"))).asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+		} catch (final Throwable t) {
+			System.out.println("Unable to find setup reflection. Plugin will still function.");
+			System.out.println("Error: " + t.getClass().getSimpleName() + ": " + t.getMessage());
+			System.out.println("Ignore this if using Cauldron. Otherwise check if your server is compatibible.");
+
+			getHandle = null;
+			getConnection = null;
+			sendPacket = null;
+		}
+
+		if (sendPacket != null)
+			try {
+				final Class<?> playerConnection = ReflectionUtil.getNMSClass("PlayerConnection");
+				final Class<?> networkManager = ReflectionUtil.getNMSClass("NetworkManager");
+
+				// The Netty package differs between versions so find the fields by their types
+				final Field networkManagerField = findField(playerConnection, networkManager.getName());
+				final Field channelField = findField(networkManager, "io.netty.channel.Channel", "net.minecraft.util.io.netty.channel.Channel");
+
+				if (networkManagerField != null && channelField != null) {
+					final MethodHandle networkManagerGetter = lookup.unreflectGetter(networkManagerField).asType(MethodType.methodType(Object.class, Object.class));
+					final MethodHandle channelGetter = lookup.unreflectGetter(channelField).asType(MethodType.methodType(Object.class, Object.class));
+
+					channelWrite = lookup.unreflect(channelField.getType().getMethod("write", Object.class)).asType(MethodType.methodType(void.class, Object.class, Object.class));
+					channelFlush = lookup.unreflect(channelField.getType().getMethod("flush")).asType(MethodType.methodType(void.class, Object.class));
+					getChannel = MethodHandles.filterReturnValue(networkManagerGetter, channelGetter);
+				}
+
+			} catch (final ReflectiveOperationException | RuntimeException ex) {
+				System.out.println("Unable to find the packet channel, packets will be flushed one by one.");
+				System.out.println("Error: " + ex.getClass().getSimpleName() + ": " + ex.getMessage());
+
+				getChannel = null;
+			}
+	}
+
+	// Returns the first field of the given type names made accessible, or null
+	private static Field findField(Class<?> clazz, String... typeNames) {
+		for (final Field field : clazz.getDeclaredFields())
+			for (final String typeName : typeNames)
+				if (field.getType().getName().equals(typeName)) {
+					field.setAccessible(true);
+
+					return field;
+				}
+
+		return null;
+	}
+
+	/**
+	 * Return true if packets can be sent at all
+	 *
+	 * @return
+	 */
+	static boolean isSupported() {
+		return sendPacket != null;
+	}
+
+	/**
+	 * Return true if packets can be written to the Netty channel directly
+	 *
+	 * @return
+	 */
+	static boolean isChannelSupported() {
+		return getChannel != null;
+	}
+
+	/**
+	 * Send the packet, or only write it if batching is enabled
+	 *
+	 * @param player
+	 * @param packet
+	 */
+	static void send(Player player, Object packet) {
+		final Connection connection = get(player);
+
+		try {
+			if (batching && connection.channel != null) {
+				channelWrite.invokeExact(connection.channel, packet);
+
+				pendingFlush.add(connection);
+
+			} else
+				sendPacket.invokeExact(connection.playerConnection, packet);
+
+		} catch (final Throwable t) {
+			throw new ReflectionException("Could not send " + packet.getClass().getSimpleName() + " to " + player.getName(), t);
+		}
+	}
+
+	/**
+	 * Write all packets and flush them once, or leave them for the per-tick flush if batching is enabled
+	 *
+	 * @param player
+	 * @param packets
+	 */
+	static void sendAll(Player player, Object... packets) {
+		final Connection connection = get(player);
+
+		try {
+			if (connection.channel == null) {
+				for (final Object packet : packets)
+					sendPacket.invokeExact(connection.playerConnection, packet);
+
+				return;
+			}
+
+			for (final Object packet : packets)
+				channelWrite.invokeExact(connection.channel, packet);
+
+			if (batching)
+				pendingFlush.add(connection);
+			else
+				connection.flush();
+
+		} catch (final Throwable t) {
+			throw new ReflectionException("Could not send " + packets.length + " packets to " + player.getName(), t);
+		}
+	}
+
+	/**
+	 * Get the Netty channel of the player, see {@link PacketDispatcher}
+	 *
+	 * @param player
+	 * @return the channel, or null if not found on this server
+	 */
+	static Object getChannel(Player player) {
+		return isChannelSupported() ? get(player).channel : null;
+	}
+
+	/**
+	 * Write all packets to the channel and flush it once, safe to call from any thread
+	 *
+	 * @param channel
+	 * @param packets
+	 */
+	static void writeAndFlush(Object channel, Object... packets) {
+		try {
+			for (final Object packet : packets)
+				channelWrite.invokeExact(channel, packet);
+
+			channelFlush.invokeExact(channel);
+
+		} catch (final Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	/**
+	 * Enable or disable writing packets without flushing and flushing them once per tick
+	 *
+	 * @param enabled
+	 */
+	static synchronized void setBatching(boolean enabled) {
+		if (enabled == batching)
+			return;
+
+		if (enabled && !isChannelSupported()) {
+			System.out.println("Packet batching is not supported on your server software, packets will be flushed right away.");
+
+			return;
+		}
+
+		batching = enabled;
+
+		if (enabled)
+			flushTask = RemainUtils.runTimer(1, PlayerConnections::flushPending);
+
+		else {
+			if (flushTask != null) {
+				flushTask.cancel();
+				flushTask = null;
+			}
+
+			flushPending();
+		}
+	}
+
+	/**
+	 * Return true if packets are flushed once per tick
+	 *
+	 * @return
+	 */
+	static boolean isBatching() {
+		return batching;
+	}
+
+	// Flushes every connection written to since the last flush
+	private static void flushPending() {
+		for (final Connection connection : pendingFlush) {
+			pendingFlush.remove(connection);
+
+			connection.flush();
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		evict(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onPlayerKick(PlayerKickEvent event) {
+		evict(event.getPlayer());
+	}
+
+	// Forgets the connection so the player and its channel can be collected, safe to call twice since a kick is followed by a quit
+	private static void evict(Player player) {
+		final Connection connection = connections.get(player.getUniqueId());
+
+		if (connection != null && connection.player.get() == player) {
+			connections.remove(player.getUniqueId(), connection);
+
+			pendingFlush.remove(connection);
+		}
+	}
+
+	// Starts listening to quits once our plugin is enabled, the class may be loaded before that
+	private static void registerListener() {
+		if (singleton != null)
+			return;
+
+		final JavaPlugin plugin = Remain.getPlugin();
+
+		if (plugin == null || !plugin.isEnabled())
+			return;
+
+		synchronized (PlayerConnections.class) {
+			if (singleton == null) {
+				final PlayerConnections listener = new PlayerConnections();
+
+				Bukkit.getPluginManager().registerEvents(listener, plugin);
+				singleton = listener;
+			}
+		}
+	}
+
+	// Returns the cached connection, resolving it again if the player logged in again. Connections are resolved for
+	// this call only while no listener evicts them, or if the player already quit and so will not be evicted again.
+	private static Connection get(Player player) {
+		final UUID uniqueId = player.getUniqueId();
+		Connection connection = connections.get(uniqueId);
+
+		if (connection == null || connection.player.get() != player) {
+			connection = new Connection(player);
+
+			registerListener();
+
+			if (singleton != null && player.isOnline())
+				connections.put(uniqueId, connection);
+		}
+
+		return connection;
+	}
+
+	/**
+	 * Represents the resolved connection of one player session
+	 */
+	private static final class Connection {
+
+		/**
+		 * The player, compared by identity since a new instance is made on each login
+		 */
+		private final WeakReference<Player> player;
+
+		/**
+		 * The NMS PlayerConnection
+		 */
+		private final Object playerConnection;
+
+		/**
+		 * The Netty channel, or null if not found
+		 */
+		private final Object channel;
+
+		private Connection(Player player) {
+			this.player = new WeakReference<>(player);
+
+			try {
+				this.playerConnection = getConnection.invokeExact(getHandle.invokeExact(player));
+				this.channel = getChannel != null ? getChannel.invokeExact(playerConnection) : null;
+
+			} catch (final Throwable t) {
+				throw new ReflectionException("Could not find the connection of " + player.getName(), t);
+			}
+		}
+
+		// Flushes the channel, printing but not throwing errors since this runs for many players at once
+		private void flush() {
+			try {
+				channelFlush.invokeExact(channel);
+
+			} catch (final Throwable t) {
+				t.printStackTrace();
+			}
+		}
+	}
+}
@@ -2,15 +2,21 @@ package org.mineacademy.remain.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -39,42 +45,19 @@ import org.mineacademy.remain.util.MinecraftVersion.V;
 public final class ReflectionUtil {
 
 	/**
-	 * The CraftPlayer.getHandle method
+	 * Methods we already found, keyed by their class, name and parameters
 	 */
-	private static Method getHandle;
+	private static final Map<MethodKey, Method> methodCache = new ConcurrentHashMap<>();
 
 	/**
-	 * The EntityPlayer.playerConnection method
+	 * Method handles for methods we already invoked, adapted to (instance, Object[]) -> Object
 	 */
-	private static Field fieldPlayerConnection;
-
-	/**
-	 * The PlayerConnection.sendPacket method
-	 */
-	private static Method sendPacket;
+	private static final Map<Method, MethodHandle> invokerCache = new ConcurrentHashMap<>();
 
 	// Static access
 	private ReflectionUtil() {
 	}
 
-	// Load things automatically
-	static {
-		try {
-			getHandle = getOFCClass("entity.CraftPlayer").getMethod("getHandle");
-			fieldPlayerConnection = getNMSClass("EntityPlayer").getField("playerConnection");
-			sendPacket = getNMSClass("PlayerConnection").getMethod("sendPacket", getNMSClass("Packet"));
-
-		} catch (final Throwable t) {
-			System.out.println("Unable to find setup reflection. Plugin will still function.");
-			System.out.println("Error: " + t.getClass().getSimpleName() + ": " + t.getMessage());
-			System.out.println("Ignore this if using Cauldron. Otherwise check if your server is compatibible.");
-
-			fieldPlayerConnection = null;
-			sendPacket = null;
-			getHandle = null;
-		}
-	}
-
 	/**
 	 * Find a class in net.minecraft.server package, adding the version
 	 * automatically
@@ -231,24 +214,106 @@ public final class ReflectionUtil {
 	/**
 	 * Advanced: Sends a packet to the player
 	 *
+	 * If packet batching is enabled, the packet is written now and flushed at the end of the tick.
+	 *
 	 * @param player the player
 	 * @param packet the packet
 	 */
 	public static void sendPacket(Player player, Object packet) {
-		if (getHandle == null || fieldPlayerConnection == null || sendPacket == null) {
+		if (!PlayerConnections.isSupported()) {
 			System.out.println("Cannot send packet " + packet.getClass().getSimpleName() + " on your server sofware (known to be broken on Cauldron).");
 			return;
 		}
 
-		try {
-			final Object handle = getHandle.invoke(player);
-			final Object playerConnection = fieldPlayerConnection.get(handle);
-
-			sendPacket.invoke(playerConnection, packet);
+		PlayerConnections.send(player, packet);
+	}
 
-		} catch (final ReflectiveOperationException ex) {
-			throw new ReflectionException("Could not send " + packet.getClass().getSimpleName() + " to " + player.getName(), ex);
+	/**
+	 * Advanced: Sends several packets to the player, flushing the connection only once
+	 *
+	 * @param player the player
+	 * @param packets the packets, in the order they are received
+	 */
+	public static void sendPackets(Player player, Object... packets) {
+		if (!PlayerConnections.isSupported()) {
+			System.out.println("Cannot send " + packets.length + " packets on your server sofware (known to be broken on Cauldron).");
+			return;
 		}
+
+		PlayerConnections.sendAll(player, packets);
+	}
+
+	/**
+	 * Advanced: Sends packets that only change what the player sees, such as particles,
+	 * titles or boss bar updates. When async dispatch is enabled they are written from another
+	 * thread in the order given, otherwise they are sent right away.
+	 *
+	 * These packets may be dropped when the player cannot keep up, so only send updates
+	 * that a later packet makes up for. Packets spawning or removing entities must go
+	 * through {@link #sendPacket(Player, Object)}.
+	 *
+	 * @param player the player
+	 * @param packets the packets, in the order they are received
+	 */
+	public static void sendCosmeticPackets(Player player, Object... packets) {
+		if (PacketDispatcher.isEnabled() && PacketDispatcher.dispatch(player, packets))
+			return;
+
+		if (packets.length == 1)
+			sendPacket(player, packets[0]);
+		else
+			sendPackets(player, packets);
+	}
+
+	/**
+	 * Advanced: Enable or disable sending cosmetic packets off the main thread,
+	 * see {@link #sendCosmeticPackets(Player, Object...)}
+	 *
+	 * Each player has a queue of {@value PacketDispatcher#QUEUE_CAPACITY} packets,
+	 * if the player cannot keep up the oldest packets are dropped.
+	 *
+	 * @param enabled
+	 */
+	public static void setAsyncDispatch(boolean enabled) {
+		PacketDispatcher.setEnabled(enabled);
+	}
+
+	/**
+	 * Return true if cosmetic packets are sent off the main thread, see {@link #setAsyncDispatch(boolean)}
+	 *
+	 * @return
+	 */
+	public static boolean isAsyncDispatch() {
+		return PacketDispatcher.isEnabled();
+	}
+
+	/**
+	 * Get how many cosmetic packets were dropped because a player's queue was full
+	 *
+	 * @return
+	 */
+	public static long getDroppedCosmeticPackets() {
+		return PacketDispatcher.getDropped();
+	}
+
+	/**
+	 * Advanced: Enable or disable packet batching. When enabled, packets sent through
+	 * this class are written without flushing and all connections are flushed once per tick,
+	 * delaying packets by up to one tick.
+	 *
+	 * @param enabled
+	 */
+	public static void setPacketBatching(boolean enabled) {
+		PlayerConnections.setBatching(enabled);
+	}
+
+	/**
+	 * Return true if packets are flushed once per tick, see {@link #setPacketBatching(boolean)}
+	 *
+	 * @return
+	 */
+	public static boolean isPacketBatching() {
+		return PlayerConnections.isBatching();
 	}
 
 	/**
@@ -405,33 +470,20 @@ public final class ReflectionUtil {
 	/**
 	 * Gets a class method
 	 *
+	 * The result is cached so subsequent calls with the same class, name
+	 * and parameters do not scan the class again.
+	 *
 	 * @param clazz
 	 * @param methodName
 	 * @param args
 	 * @return
 	 */
 	public static Method getMethod(Class<?> clazz, String methodName, Class<?>... args) {
-		for (final Method method : clazz.getMethods())
-			if (method.getName().equals(methodName) && isClassListEqual(args, method.getParameterTypes()))
-				return method;
-
-		return null;
-	}
-
-	// Compares class lists
-	private static boolean isClassListEqual(Class<?>[] first, Class<?>[] second) {
-		if (first.length != second.length)
-			return false;
-
-		for (int i = 0; i < first.length; i++)
-			if (first[i] != second[i])
-				return false;
-
-		return true;
+		return lookupMethod(new MethodKey(clazz, methodName, args, -1));
 	}
 
 	/**
-	 * Gets a class method
+	 * Gets a class method by the amount of its parameters
 	 *
 	 * @param clazz
 	 * @param method
@@ -439,11 +491,7 @@ public final class ReflectionUtil {
 	 * @return
 	 */
 	public static Method getMethod(Class<?> clazz, String method, Integer args) {
-		for (final Method m : clazz.getMethods())
-			if (m.getName().equals(method) && args.equals(new Integer(m.getParameterTypes().length)))
-				return m;
-
-		return null;
+		return lookupMethod(new MethodKey(clazz, method, null, args));
 	}
 
 	/**
@@ -454,13 +502,51 @@ public final class ReflectionUtil {
 	 * @return
 	 */
 	public static Method getMethod(Class<?> clazz, String method) {
-		for (final Method m : clazz.getMethods())
-			if (m.getName().equals(method))
-				return m;
+		return lookupMethod(new MethodKey(clazz, method, null, -1));
+	}
+
+	// Returns the cached method or scans the class for it, methods not found are not cached
+	private static Method lookupMethod(MethodKey key) {
+		Method method = methodCache.get(key);
+
+		if (method == null) {
+			method = findMethod(key);
+
+			if (method != null)
+				methodCache.put(key.copy(), method);
+		}
+
+		return method;
+	}
+
+	// Scans public methods of the class in the key
+	private static Method findMethod(MethodKey key) {
+		for (final Method method : key.clazz.getMethods())
+			if (method.getName().equals(key.name)) {
+				if (key.parameters != null && !isClassListEqual(key.parameters, method.getParameterTypes()))
+					continue;
+
+				if (key.parameterCount != -1 && key.parameterCount != method.getParameterTypes().length)
+					continue;
+
+				return method;
+			}
 
 		return null;
 	}
 
+	// Compares class lists
+	private static boolean isClassListEqual(Class<?>[] first, Class<?>[] second) {
+		if (first.length != second.length)
+			return false;
+
+		for (int i = 0; i < first.length; i++)
+			if (first[i] != second[i])
+				return false;
+
+		return true;
+	}
+
 	/**
 	 * Invoke a static method
 	 *
@@ -483,9 +569,12 @@ public final class ReflectionUtil {
 	 */
 	public static <T> T invokeStatic(Method method, Object... params) {
 		try {
-			return (T) method.invoke(null, params);
+			return (T) getInvoker(method).invokeExact((Object) null, params);
 
-		} catch (final ReflectiveOperationException ex) {
+		} catch (final RuntimeException | Error ex) {
+			throw ex;
+
+		} catch (final Throwable ex) {
 			throw new ReflectionException("Could not invoke static method " + method + " with params " + StringUtils.join(params), ex);
 		}
 	}
@@ -513,16 +602,60 @@ public final class ReflectionUtil {
 	 * @return
 	 */
 	public static <T> T invoke(Method method, Object instance, Object... params) {
+		Objects.requireNonNull(method, "Method cannot be null for " + instance);
+
 		try {
-			Objects.requireNonNull(method, "Method cannot be null for " + instance);
+			return (T) getInvoker(method).invokeExact(instance, params);
 
-			return (T) method.invoke(instance, params);
+		} catch (final RuntimeException | Error ex) {
+			throw ex;
 
-		} catch (final ReflectiveOperationException ex) {
+		} catch (final Throwable ex) {
 			throw new ReflectionException("Could not invoke method " + method + " on instance " + instance + " with params " + StringUtils.join(params), ex);
 		}
 	}
 
+	// Returns the cached method handle for the given method
+	private static MethodHandle getInvoker(Method method) {
+		MethodHandle invoker = invokerCache.get(method);
+
+		if (invoker == null) {
+			invoker = makeInvoker(method);
+
+			invokerCache.put(method, invoker);
+		}
+
+		return invoker;
+	}
+
+	// Adapts the method to a handle taking the instance (ignored for static methods) and the parameters array
+	private static MethodHandle makeInvoker(Method method) {
+		final int parameterCount = method.getParameterTypes().length;
+		final boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+		MethodHandle handle;
+
+		try {
+			try {
+				method.setAccessible(true);
+			} catch (final RuntimeException ex) {
+				// Not permitted, unreflect below fails for non public members anyways
+			}
+
+			handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+
+		} catch (final IllegalAccessException ex) {
+			throw new ReflectionException("Could not access method " + method, ex);
+		}
+
+		handle = handle.asType(MethodType.genericMethodType(isStatic ? parameterCount : parameterCount + 1));
+
+		if (isStatic)
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+
+		return handle.asSpreader(Object[].class, parameterCount);
+	}
+
 	/**
 	 * Makes a new instance of a class
 	 *
@@ -834,11 +967,74 @@ public final class ReflectionUtil {
 			super(msg);
 		}
 
-		public ReflectionException(String msg, Exception ex) {
+		public ReflectionException(String msg, Throwable ex) {
 			super(msg, ex);
 		}
 	}
 
+	/**
+	 * Represents a method lookup key, see {@link ReflectionUtil#methodCache}
+	 */
+	private static final class MethodKey {
+
+		/**
+		 * The class to look the method in
+		 */
+		private final Class<?> clazz;
+
+		/**
+		 * The method name
+		 */
+		private final String name;
+
+		/**
+		 * The exact parameter types, or null if they do not matter
+		 */
+		private final Class<?>[] parameters;
+
+		/**
+		 * The parameter count, or -1 if it does not matter
+		 */
+		private final int parameterCount;
+
+		/**
+		 * Precomputed hash code
+		 */
+		private final int hash;
+
+		private MethodKey(Class<?> clazz, String name, Class<?>[] parameters, int parameterCount) {
+			this.clazz = clazz;
+			this.name = name;
+			this.parameters = parameters;
+			this.parameterCount = parameterCount;
+			this.hash = 31 * (31 * (31 * clazz.hashCode() + name.hashCode()) + Arrays.hashCode(parameters)) + parameterCount;
+		}
+
+		// Returns a key owning its own parameter array, lookups use the caller's
+		// array but a cached key must not change when the caller reuses it
+		private MethodKey copy() {
+			return parameters == null ? this : new MethodKey(clazz, name, parameters.clone(), parameterCount);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof MethodKey))
+				return false;
+
+			final MethodKey other = (MethodKey) obj;
+
+			return clazz == other.clazz && parameterCount == other.parameterCount && name.equals(other.name) && Arrays.equals(parameters, other.parameters);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
 	/**
 	 * Represents a failure to get the enum from {@link #lookupEnum(Class, String)}
 	 * and {@link #lookupEnum(Class, String, String)} methods
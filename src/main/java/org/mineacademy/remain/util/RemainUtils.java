@@ -8,19 +8,15 @@ import java.util.logging.Level;
 import org.apache.commons.lang.WordUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitScheduler;
 import org.bukkit.scheduler.BukkitTask;
 import org.mineacademy.remain.Remain;
-import org.mineacademy.remain.nbt.NBTItem;
-import org.mineacademy.remain.util.MinecraftVersion.V;
 
 /**
  * Various utility class.
@@ -32,9 +28,6 @@ public final class RemainUtils {
 	// The "command sender", is the object that is responsible for sending messages to the console, colors are supported
 	private static final ConsoleCommandSender consoleSender = Bukkit.getConsoleSender();
 
-	// Is Minecraft older than 1.13? Storing here for best performance.
-	private static final boolean LEGACY_MATERIALS = MinecraftVersion.olderThan(V.v1_13);
-
 	// Prevent new instance, always call static methods
 	private RemainUtils() {
 	}
@@ -232,6 +225,9 @@ public final class RemainUtils {
 	 * Two items are similar if both are not null and if their type, data, name and lore equals.
 	 * The damage, quantity, item flags enchants and other properties are ignored.
 	 *
+	 * Items are compared by their cached {@link ItemFingerprint}, so comparing an item
+	 * again costs no meta copies or NBT reads until it changes.
+	 *
 	 * @param first
 	 * @param second
 	 * @return true if items are similar (see above)
@@ -240,44 +236,10 @@ public final class RemainUtils {
 		if (first == null || second == null)
 			return false;
 
-		final boolean idMatch = first.getType() == second.getType();
-		boolean dataMatch = LEGACY_MATERIALS ? first.getData().getData() == second.getData().getData() : true;
-		final boolean metaMatch = first.hasItemMeta() == second.hasItemMeta();
-
-		if (!idMatch || !metaMatch || !(dataMatch || (dataMatch = first.getType() == Material.BOW))) {
+		if (first.getType() != second.getType())
 			return false;
-		}
-
-		// ItemMeta
-		{
-			final ItemMeta f = first.getItemMeta();
-			final ItemMeta s = second.getItemMeta();
-
-			final String fName = ChatColor.stripColor( getOrEmpty(f.getDisplayName()).toLowerCase() );
-			final String sName = ChatColor.stripColor( getOrEmpty(s.getDisplayName()).toLowerCase() );
-
-			if (!fName.equals(sName) || !listEquals(f.getLore(), s.getLore()))
-				return false;
-		}
-
-		final NBTItem firstNbt = new NBTItem(first);
-		final NBTItem secondNbt = new NBTItem(second);
-
-		return matchNbt(Remain.getPlugin().getName(), firstNbt, secondNbt) && matchNbt(Remain.getPlugin().getName() + "_Item", firstNbt, secondNbt);
-	}
-
-	// Compares the NBT string tag of two items
-	private static final boolean matchNbt(String key, NBTItem firstNbt, NBTItem secondNbt) {
-		final boolean firstHas = firstNbt.hasKey(key);
-		final boolean secondHas = secondNbt.hasKey(key);
-
-		if (!firstHas && !secondHas)
-			return true; // nothing has, essentially same
-
-		else if (firstHas && !secondHas || !firstHas && secondHas)
-			return false; // one has but another hasn't, cannot be same
 
-		return firstNbt.getString(key).equals(secondNbt.getString(key));
+		return ItemFingerprint.of(first).matches(ItemFingerprint.of(second));
 	}
 
 	/**